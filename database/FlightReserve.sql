@@ -72,7 +72,8 @@ CREATE TABLE address (
                          street       VARCHAR(50),
                          city         VARCHAR(30),
                          state        VARCHAR(20),
-                         country      VARCHAR(20)
+                         country      VARCHAR(20),
+                         INDEX idx_address_city (city) -- flight search by origin/destination city
 );
 
 DROP TABLE IF EXISTS route;
@@ -93,9 +94,15 @@ CREATE TABLE flight (
                         route_id         INT NOT NULL,
                         departure_date   DATE NOT NULL,
                         arrival_date     DATE NOT NULL,
-                        available_seats  INT,
-                        flight_length    VARCHAR(20),
-                        price            FLOAT,
+                        available_seats  INT NOT NULL, -- NOT NULL so keyset paging can seek past any row
+                        flight_length    VARCHAR(20) NOT NULL,
+                        price            FLOAT NOT NULL,
+                        INDEX idx_flight_departure_route (departure_date, route_id), -- flight search by date range
+                        INDEX idx_flight_departure (departure_date, flight_id), -- keyset paging by (departure_date, flight_id)
+                        INDEX idx_flight_arrival (arrival_date, flight_id), -- admin grid sorted by arrival date
+                        INDEX idx_flight_available_seats (available_seats, flight_id), -- admin grid sorted by seats left
+                        INDEX idx_flight_length (flight_length, flight_id), -- admin grid sorted by length
+                        INDEX idx_flight_price (price, flight_id), -- admin grid sorted by price
                         FOREIGN KEY (airplane_id) REFERENCES airplane(airplane_id),
                         FOREIGN KEY (route_id) REFERENCES route(route_id)
 );
@@ -107,17 +114,43 @@ CREATE TABLE booking (
                          customer_id   INT NOT NULL,
                          flight_id     INT NOT NULL,
                          seat_number   INT NOT NULL,
+                         INDEX idx_booking_customer (customer_id, booking_id), -- "My Bookings" lookups, agent grid sorted by customer
+                         INDEX idx_booking_flight (flight_id, booking_id), -- agent grid sorted by flight
+                         UNIQUE KEY uq_booking_flight_seat (flight_id, seat_number), -- one booking per seat
                          FOREIGN KEY (customer_id) REFERENCES customer(customer_id),
                          FOREIGN KEY (flight_id) REFERENCES flight(flight_id)
 );
 
+DROP TABLE IF EXISTS seat_hold;
+
+CREATE TABLE seat_hold (
+                         hold_id       INT AUTO_INCREMENT PRIMARY KEY,
+                         customer_id   INT NOT NULL,
+                         flight_id     INT NOT NULL,
+                         seat_number   INT NOT NULL,
+                         expires_at    TIMESTAMP(3) NOT NULL, -- database clock, so every client agrees when it ends
+                         UNIQUE KEY uq_seat_hold_flight_seat (flight_id, seat_number), -- one hold per seat
+                         FOREIGN KEY (customer_id) REFERENCES customer(customer_id) ON DELETE CASCADE,
+                         FOREIGN KEY (flight_id) REFERENCES flight(flight_id) ON DELETE CASCADE
+);
+
 DROP TABLE IF EXISTS promotion;
 
 CREATE TABLE promotion (
     promo_code VARCHAR(20) PRIMARY KEY,
     discount_rate FLOAT NOT NULL,
     description VARCHAR(255),
-    start_date DATE
+    start_date DATE,
+    published_at TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) -- live from here, or from start_date if that is later
+);
+
+DROP TABLE IF EXISTS promotion_subscription;
+
+CREATE TABLE promotion_subscription (
+    customer_id    INT PRIMARY KEY, -- one row per subscriber
+    subscribed_at  TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    notified_until TIMESTAMP(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3), -- promotions live up to here were delivered, the rest wait for login
+    FOREIGN KEY (customer_id) REFERENCES customer(customer_id) ON DELETE CASCADE
 );
 
 
@@ -228,6 +261,10 @@ INSERT INTO booking (customer_id, flight_id, seat_number) VALUES
                                                               (2, 4, 18),
                                                               (3, 6, 27);
 
+-- available_seats counts free seats, take off the seats booked above
+UPDATE flight f SET available_seats = available_seats - (SELECT COUNT(*) FROM booking b WHERE b.flight_id = f.flight_id)
+WHERE f.flight_id > 0;
+
 -- Insert more sample addresses for variety
 INSERT INTO address (postal_code, number, street, city, state, country) VALUES
                                                                             ('90210', 123, 'Sunset Blvd', 'Beverly Hills', 'CA', 'USA'),
@@ -279,6 +316,7 @@ UNION ALL SELECT 'address', COUNT(*) FROM address
 UNION ALL SELECT 'route', COUNT(*) FROM route
 UNION ALL SELECT 'flight', COUNT(*) FROM flight
 UNION ALL SELECT 'booking', COUNT(*) FROM booking
+UNION ALL SELECT 'seat_hold', COUNT(*) FROM seat_hold
 UNION ALL SELECT 'promotion', COUNT(*) FROM promotion;
 
 
@@ -292,12 +330,14 @@ CREATE ROLE db_admin@localhost, db_agent@localhost, db_customer@localhost;
 GRANT ALL PRIVILEGES ON FLIGHTRESERVE.* TO db_admin@localhost;
 GRANT SELECT, INSERT, UPDATE, DELETE ON FLIGHTRESERVE.* TO db_agent@localhost;
 GRANT SELECT, INSERT, DELETE ON FLIGHTRESERVE.booking TO db_customer@localhost;
-GRANT SELECT ON FLIGHTRESERVE.flight TO db_customer@localhost;
+GRANT SELECT, INSERT, UPDATE, DELETE ON FLIGHTRESERVE.seat_hold TO db_customer@localhost; -- held while paying
+GRANT SELECT, UPDATE (available_seats) ON FLIGHTRESERVE.flight TO db_customer@localhost; -- seat counter kept with bookings
 GRANT SELECT ON FLIGHTRESERVE.airplane TO db_customer@localhost;
 GRANT SELECT ON FLIGHTRESERVE.route TO db_customer@localhost;
 GRANT SELECT ON FLIGHTRESERVE.address TO db_customer@localhost;
 GRANT SELECT ON FLIGHTRESERVE.airline TO db_customer@localhost;
 GRANT SELECT ON FLIGHTRESERVE.promotion TO db_customer@localhost;
+GRANT SELECT, INSERT, UPDATE, DELETE ON FLIGHTRESERVE.promotion_subscription TO db_customer@localhost;
 GRANT SELECT, UPDATE ON FLIGHTRESERVE.person TO db_customer@localhost;
 GRANT SELECT, UPDATE ON FLIGHTRESERVE.customer TO db_customer@localhost;
 
@@ -0,0 +1,502 @@
+// ConnectionPool.java
+// Bounded pool of JDBC connections for a single database user (role)
+// Handed out connections are proxies, calling close() returns them to the pool
+// Each physical connection keeps a small LRU cache of its prepared statements
+package backend;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConnectionPool {
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2; // Max time isValid() may take on borrow
+    private static final long EVICTION_INTERVAL_MILLIS = 30_000; // How often the housekeeper runs
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int maxSize;
+    private final long checkoutTimeoutMillis;
+    private final long idleTimeoutMillis;
+    private final long leakThresholdMillis;
+    private final int statementCacheSize; // Prepared statements kept per physical connection, 0 disables the cache
+
+    private final Semaphore permits; // One permit per connection that may be checked out
+    private final ArrayDeque<IdleConnection> idle = new ArrayDeque<>(); // Most recently returned on top
+    private final Set<PooledConnection> borrowed = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService housekeeper;
+    private final AtomicLong executedStatements = new AtomicLong(); // Statements sent to the server, used by tests
+    private final Map<Connection, StatementCache> statementCaches =
+        Collections.synchronizedMap(new IdentityHashMap<>()); // Keyed by physical connection identity
+    private final AtomicLong statementCacheHits = new AtomicLong();
+    private final AtomicLong statementCacheMisses = new AtomicLong();
+    private volatile boolean closed = false;
+
+    /**
+     * Creates a pool for one database user. Physical connections are opened lazily.
+     *
+     * @param url JDBC url
+     * @param user Database username
+     * @param password Database password
+     * @param maxSize Max number of connections checked out at once
+     * @param checkoutTimeoutMillis How long getConnection() waits for a free connection
+     * @param idleTimeoutMillis Idle connections older than this are closed by the housekeeper
+     * @param leakThresholdMillis Connections held longer than this are reported as possible leaks
+     * @param statementCacheSize Prepared statements cached per connection (LRU), 0 to disable
+     */
+    public ConnectionPool(String url, String user, String password, int maxSize, long checkoutTimeoutMillis,
+                          long idleTimeoutMillis, long leakThresholdMillis, int statementCacheSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Pool size must be positive");
+        }
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.maxSize = maxSize;
+        this.checkoutTimeoutMillis = checkoutTimeoutMillis;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+        this.leakThresholdMillis = leakThresholdMillis;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+
+        this.housekeeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ConnectionPool-housekeeper-" + user);
+            t.setDaemon(true); // Never keep the GUI process alive
+            return t;
+        });
+        housekeeper.scheduleWithFixedDelay(this::housekeep, EVICTION_INTERVAL_MILLIS,
+            EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Borrows a connection, waiting at most checkoutTimeoutMillis for one to free up.
+     * Idle connections are validated before being handed out, broken ones are replaced.
+     *
+     * @return Connection that must be closed by the caller to return it to the pool
+     * */
+    public Connection getConnection() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool for " + user + " is closed.");
+        }
+
+        try {
+            if (!permits.tryAcquire(checkoutTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new SQLException("Timed out after " + checkoutTimeoutMillis +
+                    " ms waiting for a database connection (" + user + ", max " + maxSize + ").");
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+
+        try {
+            Connection physical = takeValidIdle();
+            if (physical == null) {
+                physical = DriverManager.getConnection(url, user, password);
+            }
+            PooledConnection pooled = new PooledConnection(physical);
+            borrowed.add(pooled);
+            return pooled.proxy;
+        }
+        catch (SQLException | RuntimeException e) {
+            permits.release(); // Give the slot back if we could not hand out a connection
+            throw e;
+        }
+    }
+
+    // Pops idle connections until one passes validation, closing the dead ones
+    private Connection takeValidIdle() {
+        while (true) {
+            IdleConnection candidate;
+            synchronized (idle) {
+                candidate = idle.pollFirst();
+            }
+            if (candidate == null) {
+                return null;
+            }
+            try {
+                if (candidate.connection.isValid(VALIDATION_TIMEOUT_SECONDS)) {
+                    return candidate.connection;
+                }
+            }
+            catch (SQLException e) {
+                // Falls through and discards the connection
+            }
+            discard(candidate.connection);
+        }
+    }
+
+    // Called by a pooled proxy when the caller closes it
+    private void release(PooledConnection pooled) {
+        if (!borrowed.remove(pooled)) {
+            return; // Already released
+        }
+        Connection physical = pooled.physical;
+        try {
+            if (closed || physical.isClosed()) {
+                discard(physical);
+            }
+            else {
+                // Reset state a caller may have changed so the next borrower gets a clean connection
+                if (!physical.getAutoCommit()) {
+                    physical.rollback();
+                    physical.setAutoCommit(true);
+                }
+                StatementCache cache = statementCaches.get(physical);
+                if (cache != null) {
+                    cache.reclaim(); // Statements the borrower forgot to close become reusable again
+                }
+                synchronized (idle) {
+                    idle.offerFirst(new IdleConnection(physical, System.currentTimeMillis()));
+                }
+            }
+        }
+        catch (SQLException e) {
+            discard(physical);
+        }
+        finally {
+            permits.release();
+        }
+    }
+
+    // Evicts idle connections past the idle timeout and reports suspected leaks
+    private void housekeep() {
+        long now = System.currentTimeMillis();
+        synchronized (idle) {
+            Iterator<IdleConnection> it = idle.iterator();
+            while (it.hasNext()) {
+                IdleConnection ic = it.next();
+                if (now - ic.returnedAt > idleTimeoutMillis) {
+                    it.remove();
+                    discard(ic.connection);
+                }
+            }
+        }
+
+        for (PooledConnection pooled : borrowed) {
+            if (!pooled.leakReported && now - pooled.borrowedAt > leakThresholdMillis) {
+                pooled.leakReported = true;
+                System.err.println("Possible connection leak (" + user + "): held for " +
+                    (now - pooled.borrowedAt) + " ms by thread " + pooled.borrowerThread);
+                pooled.borrowSite.printStackTrace();
+            }
+        }
+    }
+
+    // Closes every idle connection and stops the housekeeper, borrowed connections close when returned
+    public void close() {
+        closed = true;
+        housekeeper.shutdownNow();
+        synchronized (idle) {
+            for (IdleConnection ic : idle) {
+                discard(ic.connection);
+            }
+            idle.clear();
+        }
+    }
+
+    public boolean isClosed() { return closed; }
+    public String getUser() { return user; }
+    public int getMaxSize() { return maxSize; }
+    public int getBorrowedCount() { return borrowed.size(); }
+    public long getExecutedStatementCount() { return executedStatements.get(); }
+    public long getStatementCacheHits() { return statementCacheHits.get(); }
+    public long getStatementCacheMisses() { return statementCacheMisses.get(); }
+
+    public int getIdleCount() {
+        synchronized (idle) {
+            return idle.size();
+        }
+    }
+
+    // Closes a physical connection for good, its cached statements go with it
+    private void discard(Connection physical) {
+        statementCaches.remove(physical);
+        closeQuietly(physical);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        }
+        catch (SQLException e) {
+            // Nothing useful to do, the connection is being thrown away
+        }
+    }
+
+    // Idle physical connection and when it was returned
+    private static class IdleConnection {
+        private final Connection connection;
+        private final long returnedAt;
+
+        private IdleConnection(Connection connection, long returnedAt) {
+            this.connection = connection;
+            this.returnedAt = returnedAt;
+        }
+    }
+
+    // Borrowed connection, the proxy forwards everything except close()/isClosed()
+    private class PooledConnection implements InvocationHandler {
+        private final Connection physical;
+        private final Connection proxy;
+        private final long borrowedAt = System.currentTimeMillis();
+        private final String borrowerThread = Thread.currentThread().getName();
+        private final Exception borrowSite = new Exception("Connection borrowed here");
+        private volatile boolean logicallyClosed = false;
+        private volatile boolean leakReported = false;
+
+        private PooledConnection(Connection physical) {
+            this.physical = physical;
+            this.proxy = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!logicallyClosed) {
+                        logicallyClosed = true;
+                        release(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return logicallyClosed || physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "PooledConnection[" + user + "]";
+                default:
+                    if (logicallyClosed) {
+                        throw new SQLException("Connection has already been returned to the pool.");
+                    }
+                    if (statementCacheSize > 0 && isCacheablePrepare(method)) {
+                        int autoGeneratedKeys = args.length == 2 ? (Integer) args[1] : Statement.NO_GENERATED_KEYS;
+                        return prepareCached(this, (String) args[0], autoGeneratedKeys);
+                    }
+                    Object result;
+                    try {
+                        result = method.invoke(physical, args);
+                    }
+                    catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement && method.getReturnType().isInterface()) {
+                        return countingStatement((Statement) result, method.getReturnType());
+                    }
+                    return result;
+            }
+        }
+    }
+
+    // Wraps a statement so every execute* call is counted as one round trip
+    private Object countingStatement(Statement statement, Class<?> type) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().startsWith("execute")) {
+                executedStatements.incrementAndGet();
+            }
+            try {
+                return method.invoke(statement, args);
+            }
+            catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        });
+    }
+
+    // prepareStatement(String) and prepareStatement(String, int autoGeneratedKeys) are the variants we cache
+    private static boolean isCacheablePrepare(Method method) {
+        if (!method.getName().equals("prepareStatement")) {
+            return false;
+        }
+        Class<?>[] params = method.getParameterTypes();
+        return params.length == 1 || (params.length == 2 && params[1] == int.class);
+    }
+
+    // Hands out the cached statement for this SQL if it is free, otherwise prepares (and caches) a new one
+    private PreparedStatement prepareCached(PooledConnection owner, String sql, int autoGeneratedKeys) throws SQLException {
+        StatementCache cache = statementCaches.computeIfAbsent(owner.physical, c -> new StatementCache());
+        String key = autoGeneratedKeys + ":" + sql;
+
+        synchronized (cache) {
+            CachedStatement entry = cache.get(key);
+            if (entry != null && entry.holder == null) {
+                statementCacheHits.incrementAndGet();
+                return entry.checkOut(owner);
+            }
+
+            statementCacheMisses.incrementAndGet();
+            PreparedStatement statement = autoGeneratedKeys == Statement.NO_GENERATED_KEYS
+                ? owner.physical.prepareStatement(sql)
+                : owner.physical.prepareStatement(sql, autoGeneratedKeys);
+            if (entry != null) {
+                // Same SQL is already open on this connection (nested use), hand out an uncached one
+                return (PreparedStatement) countingStatement(statement, PreparedStatement.class);
+            }
+            entry = new CachedStatement(statement, cache);
+            cache.put(key, entry);
+            return entry.checkOut(owner);
+        }
+    }
+
+    // LRU map of one physical connection's statements, the eldest free statement is closed on overflow
+    private class StatementCache extends LinkedHashMap<String, CachedStatement> {
+        private StatementCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedStatement> eldest) {
+            if (size() <= statementCacheSize) {
+                return false;
+            }
+            eldest.getValue().evict();
+            return true;
+        }
+
+        // Called when the connection goes back to the pool
+        private synchronized void reclaim() {
+            for (CachedStatement entry : new ArrayList<>(values())) { // checkIn may drop broken entries
+                if (entry.holder != null) {
+                    entry.checkIn(entry.holder);
+                }
+            }
+        }
+    }
+
+    // A cached physical statement, holder is the handle of whoever is using it right now
+    private class CachedStatement {
+        private final PreparedStatement statement;
+        private final StatementCache cache;
+        private StatementHandle holder;
+        private boolean evicted = false;
+
+        private CachedStatement(PreparedStatement statement, StatementCache cache) {
+            this.statement = statement;
+            this.cache = cache;
+        }
+
+        private PreparedStatement checkOut(PooledConnection owner) {
+            holder = new StatementHandle(this, owner);
+            return holder.proxy;
+        }
+
+        // Clears state left by the last user so the next one starts clean, closes it if evicted meanwhile
+        private void checkIn(StatementHandle handle) {
+            synchronized (cache) {
+                if (holder != handle) {
+                    return; // Stale handle, the statement was already reclaimed
+                }
+                holder = null;
+                handle.closed = true;
+                try {
+                    if (evicted) {
+                        statement.close();
+                        return;
+                    }
+                    ResultSet open = statement.getResultSet();
+                    if (open != null) {
+                        open.close();
+                    }
+                    statement.clearParameters();
+                    statement.clearBatch();
+                    // Streaming reads set a fetch size of Integer.MIN_VALUE, the next user must get a normal statement
+                    statement.setFetchSize(0);
+                    statement.setMaxRows(0);
+                }
+                catch (SQLException e) {
+                    evicted = true;
+                    cache.values().remove(this);
+                    closeStatementQuietly(statement);
+                }
+            }
+        }
+
+        private void evict() {
+            evicted = true;
+            if (holder == null) {
+                closeStatementQuietly(statement);
+            }
+        }
+    }
+
+    // What a caller gets for a cached statement, close() puts the statement back instead of closing it
+    private class StatementHandle implements InvocationHandler {
+        private final CachedStatement entry;
+        private final PooledConnection owner;
+        private final PreparedStatement proxy;
+        private volatile boolean closed = false;
+
+        private StatementHandle(CachedStatement entry, PooledConnection owner) {
+            this.entry = entry;
+            this.owner = owner;
+            this.proxy = (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, this);
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        entry.checkIn(this);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || owner.logicallyClosed || entry.statement.isClosed();
+                case "getConnection":
+                    return owner.proxy;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    if (closed || owner.logicallyClosed) {
+                        throw new SQLException("Statement is closed.");
+                    }
+                    if (method.getName().startsWith("execute")) {
+                        executedStatements.incrementAndGet();
+                    }
+                    try {
+                        return method.invoke(entry.statement, args);
+                    }
+                    catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+
+    private static void closeStatementQuietly(Statement statement) {
+        try {
+            statement.close();
+        }
+        catch (SQLException e) {
+            // Statement is being thrown away anyway
+        }
+    }
+}
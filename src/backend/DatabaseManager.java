@@ -4,13 +4,40 @@ package backend;
 import model.*;
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class DatabaseManager {
     private static DatabaseManager instance; // Static instance of Database Manager for Singleton Patter
-    private static final String URL = "jdbc:mysql://localhost:3306/FLIGHTRESERVE?useSSL=false&allowPublicKeyRetrieval=true";
+    // Server-side prepared statements so a cached statement is parsed by MySQL only once,
+    // batched inserts are rewritten into multi-row INSERTs by the driver
+    private static final String URL = "jdbc:mysql://localhost:3306/FLIGHTRESERVE?useSSL=false&allowPublicKeyRetrieval=true" +
+        "&useServerPrepStmts=true&rewriteBatchedStatements=true";
+
+    // Pool settings, every role gets its own pool so a busy customer screen cannot starve the admin
+    private static final int DEFAULT_POOL_SIZE = 4;
+    private static final long CHECKOUT_TIMEOUT_MILLIS = 10_000; // Max wait for a free connection
+    private static final long IDLE_TIMEOUT_MILLIS = 5 * 60_000; // Idle connections older than this are closed
+    private static final long LEAK_THRESHOLD_MILLIS = 60_000; // Connections held longer are reported
+    private static final int STATEMENT_CACHE_SIZE = 64; // Prepared statements kept open per connection
+    private static final int ER_DUP_ENTRY = 1062; // MySQL error code for a unique key violation
+    private static final int CONNECT_VALIDATION_TIMEOUT_SECONDS = 2; // Max time the connect() check may take
+    private static final int DEFAULT_BATCH_CHUNK_SIZE = 1000; // Rows per commit for bulk inserts
+
     private String user; // Username for connecting to database
     private String password; // Password for connecting to database
-    private Connection connection; // SQL lib specific connection
+    private final Map<String, ConnectionPool> pools = new ConcurrentHashMap<>(); // One pool per database user
+    private volatile ConnectionPool pool; // Pool of the role that connected last
 
     private DatabaseManager() {} // Private constructor following Singleton Pattern
 
@@ -20,52 +47,85 @@ public class DatabaseManager {
      *
      * @return Singleton Database Manager Instance
      * */
-    public static DatabaseManager getInstance() { // Getting instance still following singleton pattern
+    public static synchronized DatabaseManager getInstance() { // Getting instance still following singleton pattern
         if (instance == null) {
             instance = new DatabaseManager(); // Creating new instance of database
         }
         return instance;
     }
 
+    // Max connections per database role, customers and agents run the most concurrent searches
+    private static int poolSizeFor(String user) {
+        switch (user) {
+            case "customer_user": return 8;
+            case "agent_user": return 8;
+            case "admin_user": return 6;
+            default: return DEFAULT_POOL_SIZE;
+        }
+    }
+
     /**
      * Establishes connect
-     *
+     * Creates (or reuses) the connection pool for this database user and
+     * borrows one connection up front to check the credentials work
      *
      * @param user Database username
      * @param password Database password
+     * @return True if a working connection could be opened, false on bad credentials or an unreachable server
      * */
-    public void connect(String user, String password) { 
+    public boolean connect(String user, String password) { 
         this.user = user;
         this.password = password;
-        try {
-            connection = DriverManager.getConnection(URL, this.user, this.password);
-            System.out.println("Connected to the database.");
+        ConnectionPool rolePool = pools.compute(user, (key, existing) -> {
+            if (existing != null && !existing.isClosed()) {
+                return existing;
+            }
+            return new ConnectionPool(URL, user, password, poolSizeFor(user),
+                CHECKOUT_TIMEOUT_MILLIS, IDLE_TIMEOUT_MILLIS, LEAK_THRESHOLD_MILLIS, STATEMENT_CACHE_SIZE);
+        });
+        pool = rolePool;
+        try (Connection conn = rolePool.getConnection()) {
+            if (conn.isValid(CONNECT_VALIDATION_TIMEOUT_SECONDS)) {
+                System.out.println("Connected to the database.");
+                return true;
+            }
+            System.out.println("Error connecting to the database: connection is not valid.");
         }
         catch (SQLException e) {
-            System.out.println("Error connecting to the database.");
+            System.out.println("Error connecting to the database: " + e.getMessage());
         }
+        return false;
     }
 
-    // Disconnecting from database
+    // Disconnecting from database, closes every role pool
     public void disconnect() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("Disconnected from the database.");
-            }
+        for (ConnectionPool rolePool : pools.values()) {
+            rolePool.close();
         }
-        catch (SQLException e) { // Catching error to avoid throwing it
-            System.out.println("Error disconnecting from the database.");
+        pools.clear();
+        if (pool != null) {
+            pool = null;
+            System.out.println("Disconnected from the database.");
         }
     }
 
     public boolean isConnected() { // Helper function used in early development to check the connection is maintained
-        try {
-            return connection != null && !connection.isClosed();
-        }
-        catch (SQLException e) { // If null error returns false
-            return false;
+        ConnectionPool current = pool;
+        return current != null && !current.isClosed();
+    }
+
+    /**
+     * Borrows a connection from the current role's pool.
+     * Callers must close it (try-with-resources) to hand it back.
+     *
+     * @return Pooled connection
+     * */
+    private Connection getConnection() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            throw new SQLException("Not connected to the database.");
         }
+        return current.getConnection();
     }
 
     /**
@@ -81,53 +141,46 @@ public class DatabaseManager {
      * like airline and promotions have non-auto gen. keys
      */
     public int insert(String tableName, String[] columns, Object[] values, boolean expectGeneratedKey) throws SQLException {
+        try (Connection conn = getConnection()) {
+            return insert(conn, tableName, columns, values, expectGeneratedKey);
+        }
+    }
+
+    // Same as insert above but runs on a connection the caller owns (used inside transactions)
+    private int insert(Connection conn, String tableName, String[] columns, Object[] values, boolean expectGeneratedKey) throws SQLException {
         if (columns.length != values.length) { // Checks if length = values
             throw new IllegalArgumentException("Columns and values arrays must match");
         }
 
-        StringBuilder sql = new StringBuilder("INSERT INTO " + tableName + " (");
-        StringBuilder placeholders = new StringBuilder(") VALUES ("); // Builds string query
+        String sql = insertSql(tableName, columns);
 
-        for (int i = 0; i < columns.length; i++) { // Appends question marks for safe query
-            sql.append(columns[i]);
-            placeholders.append("?");
-            if (i < columns.length - 1) {
-                sql.append(", ");
-                placeholders.append(", ");
-            }
-        }
-        placeholders.append(")");
-        sql.append(placeholders);
+        try (PreparedStatement pstmt = expectGeneratedKey
+                ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                : conn.prepareStatement(sql)) {
 
-        PreparedStatement pstmt;
-        if (expectGeneratedKey) {
-            pstmt = connection.prepareStatement(sql.toString(), Statement.RETURN_GENERATED_KEYS);
-        }
-        else {
-            pstmt = connection.prepareStatement(sql.toString());
-        }
-
-        for (int i = 0; i < values.length; i++) {
-            pstmt.setObject(i + 1, values[i]);
-        }
+            for (int i = 0; i < values.length; i++) {
+                pstmt.setObject(i + 1, values[i]);
+            }
 
-        int affectedRows = pstmt.executeUpdate();
-        if (affectedRows == 0) {
-            throw new SQLException("Insert failed, no rows affected.");
-        }
+            int affectedRows = pstmt.executeUpdate();
+            if (affectedRows == 0) {
+                throw new SQLException("Insert failed, no rows affected.");
+            }
 
-        if (expectGeneratedKey) {
-            ResultSet generatedKeys = pstmt.getGeneratedKeys();
-            if (generatedKeys.next()) {
-                return generatedKeys.getInt(1);
+            if (expectGeneratedKey) {
+                try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                    if (generatedKeys.next()) {
+                        return generatedKeys.getInt(1);
+                    }
+                    else {
+                        throw new SQLException("Insert failed, no ID obtained.");
+                    }
+                }
             }
             else {
-                throw new SQLException("Insert failed, no ID obtained.");
+                return -1;
             }
         }
-        else {
-            return -1;
-        }
     }
 
     // Insert person method 1
@@ -184,10 +237,144 @@ public class DatabaseManager {
         return insert("flight", columns, values, true);
     }
 
+    // Takes a seat off the flight's counter and inserts the booking in one transaction, fails if the flight is full
     public int insertBooking(int customerId, int flightId, int seatNumber) throws SQLException {
         String[] columns = {"customer_id", "flight_id", "seat_number"};
         Object[] values = {customerId, flightId, seatNumber};
-        return insert("booking", columns, values, true);
+        return inTransaction(conn -> {
+            reclaimExpiredHolds(conn, flightId); // Also locks the flight row until commit
+            takeSeats(conn, flightId, 1);
+            checkNotHeld(conn, flightId, new int[]{seatNumber});
+            return insert(conn, "booking", columns, values, true);
+        });
+    }
+
+    /**
+     * Books several seats on one flight for one customer, all or nothing. The seat counter is
+     * taken once for the whole group and the bookings go in as one batched insert, in a single
+     * transaction. Fails without booking anything if the flight lacks room or any seat is taken.
+     *
+     * @param customerId Customer the seats are booked for
+     * @param flightId Flight to book
+     * @param seatNumbers Seats to book
+     * @return Booking ids in the same order as seatNumbers
+     * */
+    public int[] insertGroupBooking(int customerId, int flightId, int[] seatNumbers) throws SQLException {
+        String[] columns = {"customer_id", "flight_id", "seat_number"};
+        List<Object[]> rows = new ArrayList<>(seatNumbers.length);
+        for (int seatNumber : seatNumbers) {
+            rows.add(new Object[]{customerId, flightId, seatNumber});
+        }
+        int[] keys = new int[seatNumbers.length];
+        if (seatNumbers.length == 0) {
+            return keys;
+        }
+        return inTransaction(conn -> {
+            reclaimExpiredHolds(conn, flightId); // Also locks the flight row until commit
+            takeSeats(conn, flightId, seatNumbers.length);
+            checkNotHeld(conn, flightId, seatNumbers);
+            try (PreparedStatement pstmt = conn.prepareStatement(insertSql("booking", columns),
+                                                                 Statement.RETURN_GENERATED_KEYS)) {
+                executeBatchRows(pstmt, rows, 0, rows.size(), keys);
+            }
+            return keys;
+        });
+    }
+
+    // SEAT HOLDS, a seat reserved for one customer while they pay, kept here so every client respects it
+    // A hold takes its seat off flight.available_seats when it is placed and gives it back when it is deleted,
+    // so a flight can never have more holds and bookings than seats
+
+    /**
+     * Holds a seat for a customer and takes it off the flight's seat counter. The flight row is
+     * locked first, as bookings do, so a hold and a booking of the same seat can never both succeed.
+     *
+     * @param ttlMillis How long the hold lasts, measured on the database clock
+     * @return Id of the new hold, or 0 if the seat is booked or held by someone else
+     * @throws SQLException Also when the flight has no seats left
+     * */
+    public int insertSeatHold(int customerId, int flightId, int seatNumber, long ttlMillis) throws SQLException {
+        return inTransaction(conn -> {
+            reclaimExpiredHolds(conn, flightId);
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT 1 FROM booking WHERE flight_id = ? AND seat_number = ? " +
+                    "UNION ALL SELECT 1 FROM seat_hold WHERE flight_id = ? AND seat_number = ?")) {
+                pstmt.setInt(1, flightId);
+                pstmt.setInt(2, seatNumber);
+                pstmt.setInt(3, flightId);
+                pstmt.setInt(4, seatNumber);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (rs.next()) {
+                        return 0;
+                    }
+                }
+            }
+            takeSeats(conn, flightId, 1);
+            String sql = "INSERT INTO seat_hold (customer_id, flight_id, seat_number, expires_at) " +
+                "VALUES (?, ?, ?, TIMESTAMPADD(MICROSECOND, ?, NOW(3)))";
+            try (PreparedStatement pstmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+                pstmt.setInt(1, customerId);
+                pstmt.setInt(2, flightId);
+                pstmt.setInt(3, seatNumber);
+                pstmt.setLong(4, ttlMillis * 1000);
+                pstmt.executeUpdate();
+                try (ResultSet keys = pstmt.getGeneratedKeys()) {
+                    if (!keys.next()) {
+                        throw new SQLException("No id was generated for the seat hold.");
+                    }
+                    return keys.getInt(1);
+                }
+            }
+        });
+    }
+
+    // Restarts a hold's TTL, returns false if it already ran out or is gone
+    public boolean extendSeatHold(int holdId, long ttlMillis) throws SQLException {
+        String sql = "UPDATE seat_hold SET expires_at = TIMESTAMPADD(MICROSECOND, ?, NOW(3)) " +
+            "WHERE hold_id = ? AND expires_at > NOW(3)";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setLong(1, ttlMillis * 1000);
+            pstmt.setInt(2, holdId);
+            return pstmt.executeUpdate() > 0;
+        }
+    }
+
+    // Releases a hold and gives its seat back, expiredOnly leaves it alone unless its TTL is up on the database clock
+    public int deleteSeatHold(int holdId, boolean expiredOnly) throws SQLException {
+        return inTransaction(conn -> {
+            Integer flightId = holdFlight(conn, holdId);
+            if (flightId == null) {
+                return 0; // Already booked, released or reclaimed
+            }
+            lockFlight(conn, flightId); // Flight row before hold rows, the order every hold and booking uses
+            int deleted = delete(conn, "seat_hold", expiredOnly ? "hold_id = ? AND expires_at <= NOW(3)" : "hold_id = ?",
+                new Object[]{holdId});
+            adjustAvailableSeats(conn, flightId, deleted);
+            return deleted;
+        });
+    }
+
+    /**
+     * Turns a hold into a booking in one transaction, the hold's seat on the counter becomes the booking's.
+     * The hold counts as long as its row is there, even slightly past its TTL. If it is gone the seat is
+     * booked as a new booking would be, since the customer has already paid for it.
+     *
+     * @return Id of the new booking
+     * @throws SQLException With ER_DUP_ENTRY if the hold is gone and someone else took the seat, or when the flight filled up
+     * */
+    public int insertHeldBooking(int holdId, int customerId, int flightId, int seatNumber) throws SQLException {
+        String[] columns = {"customer_id", "flight_id", "seat_number"};
+        Object[] values = {customerId, flightId, seatNumber};
+        return inTransaction(conn -> {
+            lockFlight(conn, flightId);
+            if (delete(conn, "seat_hold", "hold_id = ?", new Object[]{holdId}) == 0) {
+                reclaimExpiredHolds(conn, flightId);
+                takeSeats(conn, flightId, 1);
+                checkNotHeld(conn, flightId, new int[]{seatNumber});
+            }
+            return insert(conn, "booking", columns, values, true);
+        });
     }
 
     public int insertRoute(int origin_id, int destination_id) throws SQLException {
@@ -197,6 +384,183 @@ public class DatabaseManager {
     }
 
 
+    // Builds the INSERT statement used by insert and insertBatch
+    private static String insertSql(String tableName, String[] columns) {
+        StringBuilder built = new StringBuilder("INSERT INTO " + tableName + " (");
+        StringBuilder placeholders = new StringBuilder(") VALUES ("); // Builds string query
+
+        for (int i = 0; i < columns.length; i++) { // Appends question marks for safe query
+            built.append(columns[i]);
+            placeholders.append("?");
+            if (i < columns.length - 1) {
+                built.append(", ");
+                placeholders.append(", ");
+            }
+        }
+        placeholders.append(")");
+        return built.append(placeholders).toString();
+    }
+
+    /**
+     * Batch version of insert. Rows are sent with addBatch/executeBatch, which the driver
+     * rewrites into multi-row INSERTs, and every chunk of rows is committed on its own.
+     * If a chunk fails it is rolled back and the exception is thrown, chunks before it stay committed.
+     *
+     * @param tableName Name of the table to insert into
+     * @param columns Array of column names
+     * @param rows One values array per row, in column order
+     * @param expectGeneratedKeys Whether to return auto-generated keys
+     * @param chunkSize Rows per executeBatch and commit
+     * @return Generated keys in the same order as rows, all -1 if expectGeneratedKeys is false
+     */
+    public int[] insertBatch(String tableName, String[] columns, List<Object[]> rows,
+                             boolean expectGeneratedKeys, int chunkSize) throws SQLException {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive");
+        }
+        for (Object[] row : rows) {
+            if (row.length != columns.length) {
+                throw new IllegalArgumentException("Columns and values arrays must match");
+            }
+        }
+
+        int[] keys = new int[rows.size()];
+        Arrays.fill(keys, -1);
+        if (rows.isEmpty()) {
+            return keys;
+        }
+
+        String sql = insertSql(tableName, columns);
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try (PreparedStatement pstmt = expectGeneratedKeys
+                    ? conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)
+                    : conn.prepareStatement(sql)) {
+
+                for (int start = 0; start < rows.size(); start += chunkSize) {
+                    executeBatchRows(pstmt, rows, start, Math.min(start + chunkSize, rows.size()),
+                                     expectGeneratedKeys ? keys : null);
+                    conn.commit();
+                }
+            }
+            catch (SQLException e) {
+                try {
+                    conn.rollback();
+                }
+                catch (SQLException rollbackEx) {
+                    System.out.println("Rollback error.");
+                }
+                throw e;
+            }
+        }
+        return keys;
+    }
+
+    // Sends rows [start, end) as one batch, and fills keys (if not null) with their generated keys
+    private void executeBatchRows(PreparedStatement pstmt, List<Object[]> rows, int start, int end,
+                                  int[] keys) throws SQLException {
+        for (int r = start; r < end; r++) {
+            Object[] row = rows.get(r);
+            for (int i = 0; i < row.length; i++) {
+                pstmt.setObject(i + 1, row[i]);
+            }
+            pstmt.addBatch();
+        }
+        pstmt.executeBatch();
+
+        if (keys != null) {
+            // Keys come back in row order, one per inserted row
+            try (ResultSet generatedKeys = pstmt.getGeneratedKeys()) {
+                int r = start;
+                while (r < end && generatedKeys.next()) {
+                    keys[r++] = generatedKeys.getInt(1);
+                }
+                if (r != end) {
+                    throw new SQLException("Batch insert failed, got " + (r - start) +
+                        " keys for " + (end - start) + " rows.");
+                }
+            }
+        }
+    }
+
+    // Same as above with the default chunk size
+    public int[] insertBatch(String tableName, String[] columns, List<Object[]> rows, boolean expectGeneratedKeys) throws SQLException {
+        return insertBatch(tableName, columns, rows, expectGeneratedKeys, DEFAULT_BATCH_CHUNK_SIZE);
+    }
+
+    // BULK INSERT METHODS, each sets the generated id on the objects and returns the ids in list order
+
+    public int[] insertPersons(List<? extends Person> persons, List<String> passwords, String role) throws SQLException {
+        String[] columns = {"username", "first_name", "last_name", "date_born", "password", "role"};
+        List<Object[]> rows = new ArrayList<>(persons.size());
+        for (int i = 0; i < persons.size(); i++) {
+            Person person = persons.get(i);
+            String dateBorn = person.getDoB() != null ? person.getDoB().toSQLDate() : null;
+            String password = passwords != null ? passwords.get(i) : null;
+            rows.add(new Object[]{person.getUsername(), person.getFirstName(), person.getLastName(), dateBorn, password, role});
+        }
+        int[] ids = insertBatch("person", columns, rows, true);
+        for (int i = 0; i < ids.length; i++) {
+            persons.get(i).setId(ids[i]);
+        }
+        return ids;
+    }
+
+    // Customers must already have their person row (and id)
+    public void insertCustomers(List<Customer> customers) throws SQLException {
+        String[] columns = {"customer_id", "email"};
+        List<Object[]> rows = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            rows.add(new Object[]{customer.getId(), customer.getEmail()});
+        }
+        insertBatch("customer", columns, rows, false);
+    }
+
+    public int[] insertAddresses(List<Address> addresses) throws SQLException {
+        String[] columns = {"postal_code", "number", "street", "city", "state", "country"};
+        List<Object[]> rows = new ArrayList<>(addresses.size());
+        for (Address address : addresses) {
+            rows.add(new Object[]{address.getPostalCode(), address.getNumber(), address.getStreet(),
+                address.getCity(), address.getState(), address.getCountry()});
+        }
+        int[] ids = insertBatch("address", columns, rows, true);
+        for (int i = 0; i < ids.length; i++) {
+            addresses.get(i).setAddressID(ids[i]);
+        }
+        return ids;
+    }
+
+    public int[] insertFlights(List<Flight> flights) throws SQLException {
+        String[] columns = {"airplane_id", "route_id", "departure_date", "arrival_date", "available_seats", "flight_length", "price"};
+        List<Object[]> rows = new ArrayList<>(flights.size());
+        for (Flight flight : flights) {
+            rows.add(new Object[]{flight.getAirplane().getAirplaneID(), flight.getRoute().getRouteID(),
+                java.sql.Date.valueOf(flight.getDepartureDate().toSQLDate()),
+                java.sql.Date.valueOf(flight.getArrivalDate().toSQLDate()),
+                flight.getAvailableSeats(), flight.getFlightTime(), flight.getPrice()});
+        }
+        int[] ids = insertBatch("flight", columns, rows, true);
+        for (int i = 0; i < ids.length; i++) {
+            flights.get(i).setFlightID(ids[i]);
+        }
+        return ids;
+    }
+
+    // Meant for data loads, flight.available_seats is not adjusted (see insertBooking for live bookings)
+    public int[] insertBookings(List<Booking> bookings) throws SQLException {
+        String[] columns = {"customer_id", "flight_id", "seat_number"};
+        List<Object[]> rows = new ArrayList<>(bookings.size());
+        for (Booking booking : bookings) {
+            rows.add(new Object[]{booking.getCustomer().getId(), booking.getFlight().getFlightID(), booking.getSeatNumber()});
+        }
+        int[] ids = insertBatch("booking", columns, rows, true);
+        for (int i = 0; i < ids.length; i++) {
+            bookings.get(i).setBookingId(ids[i]);
+        }
+        return ids;
+    }
+
+
     // INSERT METHODS FOR PROMOTIONS
     public void insertPromotion(String promoCode, double discountRate, String description, CustomDate startDate) throws SQLException {
         String[] columns = {"promo_code", "discount_rate", "description", "start_date"};
@@ -205,6 +569,16 @@ public class DatabaseManager {
         insert("promotion", columns, values, false);
     }
 
+    // Subscribes a customer to promotion notifications, returns 0 if they already were
+    public int insertSubscription(int customerId) throws SQLException {
+        String sql = "INSERT IGNORE INTO promotion_subscription (customer_id) VALUES (?)";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, customerId);
+            return pstmt.executeUpdate();
+        }
+    }
+
 
 
 
@@ -213,7 +587,8 @@ public class DatabaseManager {
         ArrayList<Address> addresses = new ArrayList<>();
         String query = "SELECT * FROM address";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -238,7 +613,8 @@ public class DatabaseManager {
         ArrayList<Airline> airlines = new ArrayList<>();
         String query = "SELECT * FROM airline";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -253,7 +629,8 @@ public class DatabaseManager {
         ArrayList<Airplane> airplanes = new ArrayList<>();
         String query = "SELECT a.*, al.airline_name FROM airplane a JOIN airline al ON a.airline_name = al.airline_name";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -279,7 +656,8 @@ public class DatabaseManager {
             "JOIN address o ON r.origin_id = o.address_id " +
             "JOIN address d ON r.destination_id = d.address_id";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -310,43 +688,588 @@ public class DatabaseManager {
         return routes;
     }
 
+    // Columns and joins shared by every loader that needs full Flight objects
+    // airline_name comes from the airplane row (it is the airline's primary key), so the airline table needs no join
+    private static final String FLIGHT_GRAPH_COLUMNS =
+        "f.flight_id, f.departure_date, f.arrival_date, f.available_seats, f.flight_length, f.price, " +
+        "a.airplane_id, a.airline_name, a.name AS airplane_name, a.flight_number, " +
+        "r.route_id, " +
+        "o.address_id AS o_address_id, o.postal_code AS o_postal_code, o.number AS o_number, o.street AS o_street, " +
+        "o.city AS o_city, o.state AS o_state, o.country AS o_country, " +
+        "d.address_id AS d_address_id, d.postal_code AS d_postal_code, d.number AS d_number, d.street AS d_street, " +
+        "d.city AS d_city, d.state AS d_state, d.country AS d_country";
+    private static final String FLIGHT_GRAPH_JOINS =
+        "JOIN airplane a ON f.airplane_id = a.airplane_id " +
+        "JOIN route r ON f.route_id = r.route_id " +
+        "JOIN address o ON r.origin_id = o.address_id " +
+        "JOIN address d ON r.destination_id = d.address_id";
+    private static final String FLIGHT_GRAPH_SELECT =
+        "SELECT " + FLIGHT_GRAPH_COLUMNS + " FROM flight f " + FLIGHT_GRAPH_JOINS;
+
+    /**
+     * Loads every flight with its airplane, airline, route and both addresses in one query.
+     * Rows sharing an airplane or route share the same objects.
+     *
+     * @return All flights ordered by id
+     * */
     public ArrayList<Flight> getAllFlights() throws SQLException {
         ArrayList<Flight> flights = new ArrayList<>();
-        String query = "SELECT * FROM flight";
+        String query = FLIGHT_GRAPH_SELECT + " ORDER BY f.flight_id";
+
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
+
+            FlightGraph graph = new FlightGraph();
+            while (rs.next()) {
+                flights.add(graph.readFlight(rs));
+            }
+        }
+        return flights;
+    }
+
+    /**
+     * Searches flights in SQL, only matching rows are sent back. Null or empty arguments are ignored.
+     * City filters are case-insensitive prefix matches so they can use the address(city) index.
+     *
+     * @param originCity Start of the origin city name
+     * @param destinationCity Start of the destination city name
+     * @param fromDate Earliest departure date (inclusive)
+     * @param toDate Latest departure date (inclusive)
+     * @param minSeats Minimum number of available seats, 0 for no minimum
+     * @param airlineName Exact airline name
+     * @return Matching flights ordered by departure date
+     * */
+    public ArrayList<Flight> searchFlights(String originCity, String destinationCity, CustomDate fromDate,
+                                           CustomDate toDate, int minSeats, String airlineName) throws SQLException {
+        StringBuilder query = new StringBuilder(FLIGHT_GRAPH_SELECT);
+        ArrayList<Object> params = new ArrayList<>();
+        if (originCity != null && !originCity.isEmpty()) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append("o.city LIKE ?");
+            params.add(likePrefix(originCity));
+        }
+        if (destinationCity != null && !destinationCity.isEmpty()) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append("d.city LIKE ?");
+            params.add(likePrefix(destinationCity));
+        }
+        if (fromDate != null) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append("f.departure_date >= ?");
+            params.add(java.sql.Date.valueOf(fromDate.toSQLDate()));
+        }
+        if (toDate != null) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append("f.departure_date <= ?");
+            params.add(java.sql.Date.valueOf(toDate.toSQLDate()));
+        }
+        if (minSeats > 0) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append("f.available_seats >= ?");
+            params.add(minSeats);
+        }
+        if (airlineName != null && !airlineName.isEmpty()) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append("a.airline_name = ?");
+            params.add(airlineName);
+        }
+        query.append(" ORDER BY f.departure_date, f.flight_id");
+        return queryFlights(query.toString(), params);
+    }
+
+    /**
+     * Keyset page of flights ordered by id. Seeks past lastId with the primary key
+     * instead of an OFFSET, so every page costs the same however deep it is.
+     *
+     * @param lastId Id of the last flight of the previous page, 0 for the first page
+     * @param limit Max flights per page
+     * @return Next page of flights, fewer than limit on the last page
+     * */
+    public ArrayList<Flight> getFlightsAfter(int lastId, int limit) throws SQLException {
+        String query = FLIGHT_GRAPH_SELECT + " WHERE f.flight_id > ? ORDER BY f.flight_id LIMIT ?";
+        return queryFlights(query, List.of(lastId, limit));
+    }
+
+    /**
+     * Keyset page of flights ordered by departure date, ties broken by id so the order is stable.
+     *
+     * @param lastDeparture Departure date of the last flight of the previous page, null for the first page
+     * @param lastId Id of the last flight of the previous page
+     * @param limit Max flights per page
+     * @return Next page of flights
+     * */
+    public ArrayList<Flight> getFlightsAfter(CustomDate lastDeparture, int lastId, int limit) throws SQLException {
+        if (lastDeparture == null) {
+            return queryFlights(FLIGHT_GRAPH_SELECT + " ORDER BY f.departure_date, f.flight_id LIMIT ?", List.of(limit));
+        }
+        java.sql.Date departure = java.sql.Date.valueOf(lastDeparture.toSQLDate());
+        String query = FLIGHT_GRAPH_SELECT +
+            " WHERE f.departure_date > ? OR (f.departure_date = ? AND f.flight_id > ?)" +
+            " ORDER BY f.departure_date, f.flight_id LIMIT ?";
+        return queryFlights(query, List.of(departure, departure, lastId, limit));
+    }
 
+    // A column a grid can be sorted by. keyOf reads the sort value back from a row so the next page
+    // can seek past it, it must equal the stored value exactly or rows would be skipped or repeated
+    private record SortKey<T>(String column, Function<T, Object> keyOf) { }
+
+    // Sortable flight columns by name, each sort is tie-broken by flight_id
+    private static final Map<String, SortKey<Flight>> FLIGHT_SORT_KEYS = Map.of(
+        "flight_id", new SortKey<>("f.flight_id", Flight::getFlightID),
+        "airplane_id", new SortKey<>("f.airplane_id", f -> f.getAirplane().getAirplaneID()),
+        "route_id", new SortKey<>("f.route_id", f -> f.getRoute().getRouteID()),
+        "departure_date", new SortKey<>("f.departure_date", f -> java.sql.Date.valueOf(f.getDepartureDate().toSQLDate())),
+        "arrival_date", new SortKey<>("f.arrival_date", f -> java.sql.Date.valueOf(f.getArrivalDate().toSQLDate())),
+        "available_seats", new SortKey<>("f.available_seats", Flight::getAvailableSeats),
+        "flight_length", new SortKey<>("f.flight_length", Flight::getFlightTime),
+        // Widened to the double the FLOAT column compares as, the float itself would be sent as a shorter decimal
+        "price", new SortKey<>("f.price", f -> (double) f.getPrice())
+    );
+
+    public int countFlights() throws SQLException {
+        return count("SELECT COUNT(*) FROM flight");
+    }
 
+    /**
+     * One page of flights in any sortable order, for grids that only load what is on screen.
+     * When the last flight of the previous page is given the query seeks past it, otherwise it skips offset rows.
+     * Every sort column is indexed together with flight_id, so either way MySQL walks an index instead of sorting.
+     *
+     * @param sortBy Column name, one of flight_id, airplane_id, route_id, departure_date, arrival_date,
+     *               available_seats, flight_length or price
+     * @param descending Sort direction, also applied to the flight_id tie-break
+     * @param after Last flight of the previous page, or null
+     * @param offset Rows to skip when after is null
+     * @param limit Max flights per page
+     * @return The page, fewer than limit at the end of the table
+     * */
+    public ArrayList<Flight> getFlightsPage(String sortBy, boolean descending, Flight after, int offset, int limit) throws SQLException {
+        ArrayList<Object> params = new ArrayList<>();
+        String query = pageQuery(FLIGHT_GRAPH_SELECT, FLIGHT_SORT_KEYS, "f.flight_id", Flight::getFlightID,
+                                 sortBy, descending, after, offset, limit, params);
+        return queryFlights(query, params);
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+    // Builds an ORDER BY ... LIMIT query for one page, keyset when possible, see getFlightsPage
+    private static <T> String pageQuery(String select, Map<String, SortKey<T>> sortKeys, String idColumn,
+                                        Function<T, Object> idOf, String sortBy, boolean descending,
+                                        T after, int offset, int limit, List<Object> params) {
+        SortKey<T> sort = sortKeys.get(sortBy);
+        if (sort == null) {
+            throw new IllegalArgumentException("Cannot sort by " + sortBy);
+        }
+        String direction = descending ? " DESC" : "";
+        String past = descending ? " < ?" : " > ?";
+        boolean byId = sort.column().equals(idColumn);
+        StringBuilder query = new StringBuilder(select);
+
+        boolean seek = after != null;
+        if (seek) {
+            Object id = idOf.apply(after);
+            if (byId) {
+                query.append(" WHERE ").append(idColumn).append(past);
+                params.add(id);
+            }
+            else {
+                Object key = sort.keyOf().apply(after);
+                query.append(" WHERE (").append(sort.column()).append(past).append(" OR (")
+                     .append(sort.column()).append(" = ? AND ").append(idColumn).append(past).append("))");
+                params.addAll(List.of(key, key, id));
+            }
+        }
+        query.append(" ORDER BY ");
+        if (!byId) {
+            query.append(sort.column()).append(direction).append(", ");
+        }
+        query.append(idColumn).append(direction).append(" LIMIT ?");
+        params.add(limit);
+        if (!seek) {
+            query.append(" OFFSET ?");
+            params.add(offset);
+        }
+        return query.toString();
+    }
+
+    // Runs a SELECT COUNT(*) style query
+    private int count(String query) throws SQLException {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
 
+    // Runs a FLIGHT_GRAPH_SELECT based query and builds its flights
+    private ArrayList<Flight> queryFlights(String query, List<Object> params) throws SQLException {
+        ArrayList<Flight> flights = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
 
-            while (rs.next()) {
-                Route route = getRouteById(rs.getInt("route_id"));
-                Airplane airplane = getAirplaneById(rs.getInt("airplane_id"));
-
-
-                Flight flight = new Flight(
-                    rs.getInt("flight_id"),
-                    airplane, // airplane would be fetched separately
-                    route,
-                    CustomDate.StringToDate(rs.getDate("departure_date").toString()),
-                    CustomDate.StringToDate(rs.getDate("arrival_date").toString()),
-                    rs.getInt("available_seats"),
-                    rs.getString("flight_length"),
-                    rs.getFloat("price")
-                );
-                flights.add(flight);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                FlightGraph graph = new FlightGraph();
+                while (rs.next()) {
+                    flights.add(graph.readFlight(rs));
+                }
             }
         }
         return flights;
     }
 
+    // Escapes LIKE wildcards typed by the user and appends the prefix wildcard
+    private static String likePrefix(String text) {
+        return text.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_") + "%";
+    }
+
+    /**
+     * Streams every flight without loading the table into memory. The rows are read from MySQL
+     * one at a time, so the stream holds a pooled connection until it is closed.
+     * A failure while reading surfaces as a RuntimeException whose cause is the SQLException.
+     *
+     * @return Flights ordered by id, must be closed (try-with-resources)
+     * */
+    public Stream<Flight> streamFlights() throws SQLException {
+        FlightGraph graph = new FlightGraph(false);
+        return streamQuery(FLIGHT_GRAPH_SELECT + " ORDER BY f.flight_id", graph::readFlight);
+    }
+
+    // Calls action for every flight, streaming the rows
+    public void forEachFlight(Consumer<Flight> action) throws SQLException {
+        try (Stream<Flight> flights = streamFlights()) {
+            flights.forEach(action);
+        }
+        catch (StreamingSQLException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Streams every booking with its customer and flight, same rules as streamFlights.
+     *
+     * @return Bookings ordered by id, must be closed (try-with-resources)
+     * */
+    public Stream<Booking> streamBookings() throws SQLException {
+        FlightGraph graph = new FlightGraph(false);
+        return streamQuery(BOOKING_GRAPH_SELECT + " ORDER BY b.booking_id", rs -> new Booking(
+            rs.getInt("booking_id"),
+            graph.readCustomer(rs),
+            graph.readFlight(rs),
+            rs.getInt("seat_number")
+        ));
+    }
+
+    // Calls action for every booking, streaming the rows so memory use does not depend on the table size
+    public void forEachBooking(Consumer<Booking> action) throws SQLException {
+        try (Stream<Booking> bookings = streamBookings()) {
+            bookings.forEach(action);
+        }
+        catch (StreamingSQLException e) {
+            throw e.getCause();
+        }
+    }
+
+    // Work done on one connection inside a transaction, see inTransaction
+    @FunctionalInterface
+    private interface TransactionWork<T> {
+        T run(Connection conn) throws SQLException;
+    }
+
+    // Runs work on one pooled connection and commits, or rolls back and rethrows if it fails
+    private <T> T inTransaction(TransactionWork<T> work) throws SQLException {
+        try (Connection conn = getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                T result = work.run(conn);
+                conn.commit();
+                return result;
+            }
+            catch (SQLException | RuntimeException e) {
+                try {
+                    conn.rollback();
+                }
+                catch (SQLException rollbackEx) {
+                    System.out.println("Rollback error.");
+                }
+                throw e;
+            }
+        }
+    }
+
+    // Adds delta to a flight's available seats unless that would take it below zero, returns rows changed
+    private int adjustAvailableSeats(Connection conn, int flightId, int delta) throws SQLException {
+        String sql = "UPDATE flight SET available_seats = available_seats + ? " +
+            "WHERE flight_id = ? AND available_seats + ? >= 0";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, delta);
+            pstmt.setInt(2, flightId);
+            pstmt.setInt(3, delta);
+            return pstmt.executeUpdate();
+        }
+    }
+
+    // Claims count seats on the counter, the database rejects the claim if not enough are left
+    private void takeSeats(Connection conn, int flightId, int count) throws SQLException {
+        if (adjustAvailableSeats(conn, flightId, -count) == 0) {
+            throw new SQLException("Not enough available seats on flight " + flightId + ".");
+        }
+    }
+
+    // Locks the flight row until the transaction ends, bookings and seat holds of a flight go one at a time
+    private void lockFlight(Connection conn, int flightId) throws SQLException {
+        adjustAvailableSeats(conn, flightId, 0);
+    }
+
+    // Locks the flight and deletes its holds whose TTL is up, e.g. left behind by a client that closed,
+    // their seats go back on the counter
+    private void reclaimExpiredHolds(Connection conn, int flightId) throws SQLException {
+        lockFlight(conn, flightId);
+        int reclaimed = delete(conn, "seat_hold", "flight_id = ? AND expires_at <= NOW(3)", new Object[]{flightId});
+        if (reclaimed > 0) {
+            adjustAvailableSeats(conn, flightId, reclaimed);
+        }
+    }
+
+    // Flight of a seat hold, or null if the hold does not exist
+    private Integer holdFlight(Connection conn, int holdId) throws SQLException {
+        try (PreparedStatement pstmt = conn.prepareStatement("SELECT flight_id FROM seat_hold WHERE hold_id = ?")) {
+            pstmt.setInt(1, holdId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt(1) : null;
+            }
+        }
+    }
+
+    // Fails with a duplicate key error, as a booked seat would, if another customer holds one of the seats
+    private void checkNotHeld(Connection conn, int flightId, int[] seatNumbers) throws SQLException {
+        StringBuilder sql = new StringBuilder(
+            "SELECT seat_number FROM seat_hold WHERE flight_id = ? AND expires_at > NOW(3) AND seat_number IN (");
+        for (int i = 0; i < seatNumbers.length; i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            pstmt.setInt(1, flightId);
+            for (int i = 0; i < seatNumbers.length; i++) {
+                pstmt.setInt(i + 2, seatNumbers[i]);
+            }
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    throw new SQLException("Seat " + rs.getInt("seat_number") + " is on hold for another customer.",
+                        "23000", ER_DUP_ENTRY);
+                }
+            }
+        }
+    }
+
+    // Flight of a booking, locked until the transaction ends, or null if the booking does not exist
+    private Integer lockBookingFlight(Connection conn, int bookingId) throws SQLException {
+        String sql = "SELECT flight_id FROM booking WHERE booking_id = ? FOR UPDATE";
+        try (PreparedStatement pstmt = conn.prepareStatement(sql)) {
+            pstmt.setInt(1, bookingId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getInt("flight_id") : null;
+            }
+        }
+    }
+
+    // Maps the current row of a result set
+    @FunctionalInterface
+    private interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    // Runs query in MySQL streaming mode and exposes the rows as a lazy stream, closing the stream frees the connection
+    private <T> Stream<T> streamQuery(String query, RowMapper<T> mapper) throws SQLException {
+        Connection conn = getConnection();
+        PreparedStatement pstmt = null;
+        try {
+            pstmt = conn.prepareStatement(query, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            pstmt.setFetchSize(Integer.MIN_VALUE); // Tells Connector/J to stream rows instead of buffering the result
+            ResultSet rs = pstmt.executeQuery();
+
+            Spliterator<T> rows = new Spliterators.AbstractSpliterator<T>(Long.MAX_VALUE, Spliterator.ORDERED | Spliterator.NONNULL) {
+                @Override
+                public boolean tryAdvance(Consumer<? super T> action) {
+                    try {
+                        if (!rs.next()) {
+                            return false;
+                        }
+                        action.accept(mapper.map(rs));
+                        return true;
+                    }
+                    catch (SQLException e) {
+                        throw new StreamingSQLException(e);
+                    }
+                }
+            };
+
+            PreparedStatement statement = pstmt;
+            return StreamSupport.stream(rows, false).onClose(() -> {
+                try (conn; statement; rs) {
+                    // Closing the result set first lets the driver finish reading any unread rows
+                }
+                catch (SQLException e) {
+                    throw new StreamingSQLException(e);
+                }
+            });
+        }
+        catch (SQLException | RuntimeException e) {
+            try (conn) {
+                if (pstmt != null) {
+                    pstmt.close();
+                }
+            }
+            throw e;
+        }
+    }
+
+    // Carries a SQLException out of a Stream, forEach* unwrap it again
+    private static class StreamingSQLException extends RuntimeException {
+        private StreamingSQLException(SQLException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized SQLException getCause() {
+            return (SQLException) super.getCause();
+        }
+    }
+
+    // Number of statements the current pool has executed, lets tests check round trips
+    public long getExecutedStatementCount() {
+        ConnectionPool current = pool;
+        return current != null ? current.getExecutedStatementCount() : 0;
+    }
+
+    // Prepared statements the current pool reused instead of preparing again
+    public long getStatementCacheHits() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStatementCacheHits() : 0;
+    }
+
+    // Prepared statements the current pool had to prepare on the server
+    public long getStatementCacheMisses() {
+        ConnectionPool current = pool;
+        return current != null ? current.getStatementCacheMisses() : 0;
+    }
+
+    // Builds Flight (and Customer) objects from joined rows, de-duplicating airlines, airplanes, routes and addresses
+    // Streaming readers turn off sharing of flights and customers so memory does not grow with the row count
+    private static class FlightGraph {
+        private final Map<String, Airline> airlines = new HashMap<>();
+        private final Map<Integer, Airplane> airplanes = new HashMap<>();
+        private final Map<Integer, Address> addresses = new HashMap<>();
+        private final Map<Integer, Route> routes = new HashMap<>();
+        private final Map<Integer, Flight> flights = new HashMap<>();
+        private final Map<Integer, Customer> customers = new HashMap<>();
+        private final boolean shareRows; // Whether flights and customers are de-duplicated too
+
+        private FlightGraph() {
+            this(true);
+        }
+
+        private FlightGraph(boolean shareRows) {
+            this.shareRows = shareRows;
+        }
+
+        private Flight readFlight(ResultSet rs) throws SQLException {
+            int flightId = rs.getInt("flight_id");
+            Flight cached = shareRows ? flights.get(flightId) : null;
+            if (cached != null) {
+                return cached;
+            }
+
+            Flight flight = new Flight(
+                flightId,
+                readAirplane(rs),
+                readRoute(rs),
+                CustomDate.StringToDate(rs.getDate("departure_date").toString()),
+                CustomDate.StringToDate(rs.getDate("arrival_date").toString()),
+                rs.getInt("available_seats"),
+                rs.getString("flight_length"),
+                rs.getFloat("price")
+            );
+            if (shareRows) {
+                flights.put(flightId, flight);
+            }
+            return flight;
+        }
+
+        private Airplane readAirplane(ResultSet rs) throws SQLException {
+            int airplaneId = rs.getInt("airplane_id");
+            Airplane airplane = airplanes.get(airplaneId);
+            if (airplane == null) {
+                Airline airline = airlines.computeIfAbsent(rs.getString("airline_name"), Airline::new);
+                airplane = new Airplane(
+                    airplaneId,
+                    airline,
+                    rs.getString("airplane_name"),
+                    "Active", // default status
+                    rs.getInt("flight_number"),
+                    new ArrayList<>()
+                );
+                airplanes.put(airplaneId, airplane);
+            }
+            return airplane;
+        }
+
+        private Route readRoute(ResultSet rs) throws SQLException {
+            int routeId = rs.getInt("route_id");
+            Route route = routes.get(routeId);
+            if (route == null) {
+                route = new Route(routeId, readAddress(rs, "o_"), readAddress(rs, "d_"));
+                routes.put(routeId, route);
+            }
+            return route;
+        }
+
+        // prefix is "o_" for the origin columns and "d_" for the destination columns
+        private Address readAddress(ResultSet rs, String prefix) throws SQLException {
+            int addressId = rs.getInt(prefix + "address_id");
+            Address address = addresses.get(addressId);
+            if (address == null) {
+                address = new Address(
+                    addressId,
+                    rs.getString(prefix + "postal_code"),
+                    rs.getInt(prefix + "number"),
+                    rs.getString(prefix + "street"),
+                    rs.getString(prefix + "city"),
+                    rs.getString(prefix + "state"),
+                    rs.getString(prefix + "country")
+                );
+                addresses.put(addressId, address);
+            }
+            return address;
+        }
+
+        // Reads the customer columns of BOOKING_GRAPH_SELECT
+        private Customer readCustomer(ResultSet rs) throws SQLException {
+            int customerId = rs.getInt("customer_id");
+            Customer customer = shareRows ? customers.get(customerId) : null;
+            if (customer == null) {
+                java.sql.Date dob = rs.getDate("date_born");
+                CustomDate dateOfBirth = dob != null ? CustomDate.StringToDate(dob.toString()) : new CustomDate(1900, 01, 01);
+
+                customer = new Customer(
+                    customerId,
+                    rs.getString("username"),
+                    rs.getString("first_name"),
+                    rs.getString("last_name"),
+                    dateOfBirth,
+                    rs.getString("email")
+                );
+                if (shareRows) {
+                    customers.put(customerId, customer);
+                }
+            }
+            return customer;
+        }
+    }
+
     public Airplane getAirplaneById(int airplaneId) throws SQLException {
         String query = "SELECT a.*, al.airline_name FROM airplane a " +
             "JOIN airline al ON a.airline_name = al.airline_name " +
             "WHERE a.airplane_id = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, airplaneId);
             ResultSet rs = pstmt.executeQuery();
 
@@ -371,7 +1294,8 @@ public class DatabaseManager {
             "JOIN address d ON r.destination_id = d.address_id " +
             "WHERE r.route_id = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, routeId);
             ResultSet rs = pstmt.executeQuery();
 
@@ -410,8 +1334,9 @@ public class DatabaseManager {
             "FROM person p JOIN customer c ON p.person_id = c.customer_id " +
             "WHERE p.role = 'Customer'";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
-            ResultSet rs = pstmt.executeQuery()) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
+             ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
                 java.sql.Date dob = rs.getDate("date_born");
@@ -431,11 +1356,50 @@ public class DatabaseManager {
         return customers;
     }
 
+    /**
+     * Keyset page of customers ordered by person id, see getFlightsAfter.
+     *
+     * @param lastId Id of the last customer of the previous page, 0 for the first page
+     * @param limit Max customers per page
+     * @return Next page of customers
+     * */
+    public ArrayList<Customer> getCustomersAfter(int lastId, int limit) throws SQLException {
+        ArrayList<Customer> customers = new ArrayList<>();
+        String query = "SELECT p.person_id, p.username, p.first_name, p.last_name, p.date_born, c.email " +
+            "FROM person p JOIN customer c ON p.person_id = c.customer_id " +
+            "WHERE p.role = 'Customer' AND p.person_id > ? " +
+            "ORDER BY p.person_id LIMIT ?";
+
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, lastId);
+            pstmt.setInt(2, limit);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    java.sql.Date dob = rs.getDate("date_born");
+                    CustomDate dateOfBirth = dob != null ? CustomDate.StringToDate(dob.toString()) : new CustomDate(1900, 01, 01);
+
+                    customers.add(new Customer(
+                        rs.getInt("person_id"),
+                        rs.getString("username"),
+                        rs.getString("first_name"),
+                        rs.getString("last_name"),
+                        dateOfBirth,
+                        rs.getString("email")
+                    ));
+                }
+            }
+        }
+        return customers;
+    }
+
     public ArrayList<Admin> getAllAdmins() throws SQLException {
         ArrayList<Admin> admins = new ArrayList<>();
         String query = "SELECT * FROM person WHERE role = 'Admin'";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -461,7 +1425,8 @@ public class DatabaseManager {
             "JOIN agent a ON p.person_id = a.agent_id " +
             "WHERE p.role = 'FlightAgent'";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -483,25 +1448,144 @@ public class DatabaseManager {
     }
 
 
+    // Booking columns plus the customer and full flight graph, one row per booking
+    private static final String BOOKING_GRAPH_SELECT =
+        "SELECT b.booking_id, b.seat_number, b.customer_id, " +
+        "p.username, p.first_name, p.last_name, p.date_born, c.email, " +
+        FLIGHT_GRAPH_COLUMNS + " " +
+        "FROM booking b " +
+        "JOIN customer c ON b.customer_id = c.customer_id " +
+        "JOIN person p ON c.customer_id = p.person_id " +
+        "JOIN flight f ON b.flight_id = f.flight_id " +
+        FLIGHT_GRAPH_JOINS;
+
     // Gets all booking via SQL SELECT query
     public ArrayList<Booking> getAllBookings() throws SQLException {
-        ArrayList<Booking> bookings = new ArrayList<>();
-        String query = "SELECT b.* FROM booking b";
+        return getBookings(null, null);
+    }
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
-             ResultSet rs = pstmt.executeQuery()) {
+    /**
+     * Loads one customer's bookings, uses the booking(customer_id) index so the cost
+     * depends on the customer's own bookings rather than the whole table.
+     *
+     * @param customerId Customer whose bookings to load
+     * @return The customer's bookings ordered by booking id
+     * */
+    public ArrayList<Booking> getBookingsByCustomer(int customerId) throws SQLException {
+        return getBookings(customerId, null);
+    }
 
-            while (rs.next()) {
-                Customer customer = getCustomerById(rs.getInt("customer_id"));
-                Flight flight = getFlightById(rs.getInt("flight_id"));
-
-                Booking booking = new Booking(
-                    rs.getInt("booking_id"),
-                    customer,
-                    flight,
-                    rs.getInt("seat_number")
-                );
-                bookings.add(booking);
+    /**
+     * Loads bookings together with their customers and flights in a single query.
+     * Bookings of the same customer or flight share one Customer/Flight instance.
+     *
+     * @param customerId Only bookings of this customer, or null for any customer
+     * @param flightId Only bookings on this flight, or null for any flight
+     * @return Matching bookings ordered by booking id
+     * */
+    public ArrayList<Booking> getBookings(Integer customerId, Integer flightId) throws SQLException {
+        StringBuilder query = new StringBuilder(BOOKING_GRAPH_SELECT);
+        ArrayList<Object> params = new ArrayList<>();
+        if (customerId != null) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append("b.customer_id = ?");
+            params.add(customerId);
+        }
+        if (flightId != null) {
+            query.append(params.isEmpty() ? " WHERE " : " AND ").append("b.flight_id = ?");
+            params.add(flightId);
+        }
+        query.append(" ORDER BY b.booking_id");
+        return queryBookings(query.toString(), params);
+    }
+
+    // Loads one booking with its customer and flight, or null if it does not exist
+    public Booking getBookingById(int bookingId) throws SQLException {
+        ArrayList<Booking> bookings = queryBookings(BOOKING_GRAPH_SELECT + " WHERE b.booking_id = ?", List.of(bookingId));
+        return bookings.isEmpty() ? null : bookings.get(0);
+    }
+
+    /**
+     * Taken seats of a flight as a bitset, bit n is set when seat n is booked or held.
+     * Reads only seat numbers, so it is cheap enough to call before every seat check.
+     *
+     * @param flightId Flight to look up
+     * @return Occupied seats
+     * */
+    public BitSet getTakenSeats(int flightId) throws SQLException {
+        BitSet seats = new BitSet();
+        String query = "SELECT seat_number FROM booking WHERE flight_id = ? " +
+            "UNION ALL SELECT seat_number FROM seat_hold WHERE flight_id = ? AND expires_at > NOW(3)";
+
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, flightId);
+            pstmt.setInt(2, flightId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                while (rs.next()) {
+                    seats.set(rs.getInt("seat_number"));
+                }
+            }
+        }
+        return seats;
+    }
+
+    /**
+     * Keyset page of bookings ordered by id, see getFlightsAfter.
+     *
+     * @param lastId Id of the last booking of the previous page, 0 for the first page
+     * @param limit Max bookings per page
+     * @return Next page of bookings
+     * */
+    public ArrayList<Booking> getBookingsAfter(int lastId, int limit) throws SQLException {
+        String query = BOOKING_GRAPH_SELECT + " WHERE b.booking_id > ? ORDER BY b.booking_id LIMIT ?";
+        return queryBookings(query, List.of(lastId, limit));
+    }
+
+    // Sortable booking columns by name, each sort is tie-broken by booking_id
+    // Only columns with a (column, booking_id) index, so every page is a seek; names and dates live in joined tables
+    private static final Map<String, SortKey<Booking>> BOOKING_SORT_KEYS = Map.of(
+        "booking_id", new SortKey<>("b.booking_id", Booking::getBookingId),
+        "customer_id", new SortKey<>("b.customer_id", b -> b.getCustomer().getId()),
+        "flight_id", new SortKey<>("b.flight_id", b -> b.getFlight().getFlightID())
+    );
+
+    public int countBookings() throws SQLException {
+        return count("SELECT COUNT(*) FROM booking");
+    }
+
+    /**
+     * One page of bookings in any sortable order, see getFlightsPage.
+     *
+     * @param sortBy Column name, one of booking_id, customer_id or flight_id
+     * */
+    public ArrayList<Booking> getBookingsPage(String sortBy, boolean descending, Booking after, int offset, int limit) throws SQLException {
+        ArrayList<Object> params = new ArrayList<>();
+        String query = pageQuery(BOOKING_GRAPH_SELECT, BOOKING_SORT_KEYS, "b.booking_id", Booking::getBookingId,
+                                 sortBy, descending, after, offset, limit, params);
+        return queryBookings(query, params);
+    }
+
+    // Runs a BOOKING_GRAPH_SELECT based query and builds its bookings
+    private ArrayList<Booking> queryBookings(String query, List<Object> params) throws SQLException {
+        ArrayList<Booking> bookings = new ArrayList<>();
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            for (int i = 0; i < params.size(); i++) {
+                pstmt.setObject(i + 1, params.get(i));
+            }
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                FlightGraph graph = new FlightGraph();
+                while (rs.next()) {
+                    Booking booking = new Booking(
+                        rs.getInt("booking_id"),
+                        graph.readCustomer(rs),
+                        graph.readFlight(rs),
+                        rs.getInt("seat_number")
+                    );
+                    bookings.add(booking);
+                }
             }
         }
         return bookings;
@@ -512,7 +1596,8 @@ public class DatabaseManager {
         ArrayList<Promotion> promotions = new ArrayList<>();
         String query = "SELECT * FROM promotion ORDER BY start_date DESC"; // Query
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query);
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query);
              ResultSet rs = pstmt.executeQuery()) {
 
             while (rs.next()) {
@@ -535,7 +1620,8 @@ public class DatabaseManager {
     public Promotion getPromotionByCode(String promoCode) throws SQLException {
         String query = "SELECT * FROM promotion WHERE promo_code = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, promoCode);
             ResultSet rs = pstmt.executeQuery();
 
@@ -554,12 +1640,85 @@ public class DatabaseManager {
         return null;
     }
 
+    // Returns true if the customer is subscribed to promotion notifications
+    public boolean isSubscribed(int customerId) throws SQLException {
+        String query = "SELECT 1 FROM promotion_subscription WHERE customer_id = ?";
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setInt(1, customerId);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next();
+            }
+        }
+    }
+
+    /**
+     * Promotions a subscriber has not been notified of yet, i.e. that went live after their
+     * notified_until marker, and moves the marker to now in the same transaction. Meant for
+     * login, so subscribers who were logged out see exactly what they missed, each promotion once.
+     *
+     * @param customerId Subscribed customer
+     * @return Missed promotions in the order they went live, empty if the customer is not subscribed
+     * */
+    public ArrayList<Promotion> takeMissedPromotions(int customerId) throws SQLException {
+        return inTransaction(conn -> {
+            ArrayList<Promotion> promotions = new ArrayList<>();
+            Timestamp notifiedUntil;
+            Timestamp now;
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "SELECT notified_until, NOW(3) AS now FROM promotion_subscription WHERE customer_id = ? FOR UPDATE")) {
+                pstmt.setInt(1, customerId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    if (!rs.next()) {
+                        return promotions;
+                    }
+                    notifiedUntil = rs.getTimestamp("notified_until");
+                    now = rs.getTimestamp("now");
+                }
+            }
+
+            String query = "SELECT p.* FROM promotion p WHERE " + liveAt("p") + " > ? AND " + liveAt("p") + " <= ? " +
+                "ORDER BY " + liveAt("p");
+            try (PreparedStatement pstmt = conn.prepareStatement(query)) {
+                pstmt.setTimestamp(1, notifiedUntil);
+                pstmt.setTimestamp(2, now);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        java.sql.Date startDate = rs.getDate("start_date");
+                        CustomDate promoStartDate = startDate != null ? CustomDate.StringToDate(startDate.toString()) : null;
+
+                        promotions.add(new Promotion(
+                            rs.getString("promo_code"),
+                            rs.getDouble("discount_rate"),
+                            rs.getString("description"),
+                            promoStartDate
+                        ));
+                    }
+                }
+            }
+
+            try (PreparedStatement pstmt = conn.prepareStatement(
+                    "UPDATE promotion_subscription SET notified_until = ? WHERE customer_id = ?")) {
+                pstmt.setTimestamp(1, now);
+                pstmt.setInt(2, customerId);
+                pstmt.executeUpdate();
+            }
+            return promotions;
+        });
+    }
+
+    // When a promotion went live: when it was published, or the start of its start date if that came later
+    private static String liveAt(String alias) {
+        return "GREATEST(" + alias + ".published_at, COALESCE(TIMESTAMP(" + alias + ".start_date), " + alias + ".published_at))";
+    }
+
     public Customer getCustomerById(int customerId) throws SQLException {
         String query = "SELECT p.person_id, p.username, p.first_name, p.last_name, p.date_born, c.email " +
             "FROM person p JOIN customer c ON p.person_id = c.customer_id " +
             "WHERE p.person_id = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, customerId);
             ResultSet rs = pstmt.executeQuery();
 
@@ -580,25 +1739,45 @@ public class DatabaseManager {
         return null;
     }
 
+    // Looks a customer up by their login name, one lookup on the unique username key
+    public Customer getCustomerByUsername(String username) throws SQLException {
+        String query = "SELECT p.person_id, p.username, p.first_name, p.last_name, p.date_born, c.email " +
+            "FROM person p JOIN customer c ON p.person_id = c.customer_id " +
+            "WHERE p.username = ?";
+
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
+            pstmt.setString(1, username);
+            try (ResultSet rs = pstmt.executeQuery()) {
+                if (rs.next()) {
+                    java.sql.Date dob = rs.getDate("date_born");
+                    CustomDate dateOfBirth = dob != null ? CustomDate.StringToDate(dob.toString()) : new CustomDate(1900, 01, 01);
+
+                    return new Customer(
+                        rs.getInt("person_id"),
+                        rs.getString("username"),
+                        rs.getString("first_name"),
+                        rs.getString("last_name"),
+                        dateOfBirth,
+                        rs.getString("email")
+                    );
+                }
+            }
+        }
+        return null;
+    }
+
+    // Loads one flight with its airplane and route filled in
     public Flight getFlightById(int flightId) throws SQLException {
-        // Simplified - in real implementation, join with related tables
-        String query = "SELECT * FROM flight WHERE flight_id = ?";
+        String query = FLIGHT_GRAPH_SELECT + " WHERE f.flight_id = ?";
 
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, flightId);
             ResultSet rs = pstmt.executeQuery();
 
             if (rs.next()) {
-                return new Flight(
-                    rs.getInt("flight_id"),
-                    null, // airplane
-                    null, // route
-                    CustomDate.StringToDate(rs.getDate("departure_date").toString()),
-                    CustomDate.StringToDate(rs.getDate("arrival_date").toString()),
-                    rs.getInt("available_seats"),
-                    rs.getString("flight_length"),
-                    rs.getFloat("price")
-                );
+                return new FlightGraph().readFlight(rs);
             }
         }
         return null;
@@ -624,6 +1803,40 @@ public class DatabaseManager {
         return update("promotion", columns, values, whereClause, whereValues);
     }
 
+    /**
+     * Records that subscribers were notified of a promotion while logged in, so their next
+     * login does not show it again. A marker only moves up to the promotion if no other
+     * promotion went live between the two, those would otherwise be skipped at login.
+     *
+     * @param promoCode Promotion that was delivered
+     * @param customerIds Subscribers it was delivered to
+     * @return Markers moved
+     * */
+    public int markPromotionNotified(String promoCode, List<Integer> customerIds) throws SQLException {
+        if (customerIds.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder(
+            "UPDATE promotion_subscription s JOIN promotion p ON p.promo_code = ? " +
+            "SET s.notified_until = " + liveAt("p") + " " +
+            "WHERE s.notified_until < " + liveAt("p") + " " +
+            "AND NOT EXISTS (SELECT 1 FROM promotion q WHERE q.promo_code <> p.promo_code " +
+            "AND " + liveAt("q") + " > s.notified_until AND " + liveAt("q") + " <= " + liveAt("p") + ") " +
+            "AND s.customer_id IN (");
+        for (int i = 0; i < customerIds.size(); i++) {
+            sql.append(i == 0 ? "?" : ", ?");
+        }
+        sql.append(")");
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
+            pstmt.setString(1, promoCode);
+            for (int i = 0; i < customerIds.size(); i++) {
+                pstmt.setInt(i + 2, customerIds.get(i));
+            }
+            return pstmt.executeUpdate();
+        }
+    }
+
     public int updateCustomer(int customerId, String email) throws SQLException {
         String[] columns = {"email"};
         Object[] values = {email};
@@ -672,12 +1885,31 @@ public class DatabaseManager {
         return update("route", columns, values, whereClause, whereValues);
     }
 
+    // Moving a booking to another flight gives its seat back to the old flight and takes one on the new flight
     public int updateBooking(int bookingId, int customerId, int flightId, int seatNumber) throws SQLException {
         String[] columns = {"customer_id", "flight_id", "seat_number"};
         Object[] values = {customerId, flightId, seatNumber};
         String whereClause = "booking_id = ?";
         Object[] whereValues = {bookingId};
-        return update("booking", columns, values, whereClause, whereValues);
+        return inTransaction(conn -> {
+            Integer oldFlightId = lockBookingFlight(conn, bookingId);
+            if (oldFlightId == null || oldFlightId == flightId) {
+                lockFlight(conn, flightId);
+            }
+            else {
+                // Touch the two flight rows in id order so concurrent moves cannot deadlock
+                if (oldFlightId < flightId) {
+                    adjustAvailableSeats(conn, oldFlightId, 1);
+                    takeSeats(conn, flightId, 1);
+                }
+                else {
+                    takeSeats(conn, flightId, 1);
+                    adjustAvailableSeats(conn, oldFlightId, 1);
+                }
+            }
+            checkNotHeld(conn, flightId, new int[]{seatNumber});
+            return update(conn, "booking", columns, values, whereClause, whereValues);
+        });
     }
 
 
@@ -692,6 +1924,13 @@ public class DatabaseManager {
      * @return Number of rows affected
      */
     public int update(String tableName, String[] columns, Object[] values, String whereClause, Object[] whereValues) throws SQLException {
+        try (Connection conn = getConnection()) {
+            return update(conn, tableName, columns, values, whereClause, whereValues);
+        }
+    }
+
+    // Same as update above but runs on a connection the caller owns (used inside transactions)
+    private int update(Connection conn, String tableName, String[] columns, Object[] values, String whereClause, Object[] whereValues) throws SQLException {
         if (columns.length != values.length) {
             throw new IllegalArgumentException("Columns and values arrays must have the same length");
         }
@@ -703,7 +1942,7 @@ public class DatabaseManager {
         }
         sql.append(" WHERE ").append(whereClause);
 
-        try (PreparedStatement pstmt = connection.prepareStatement(sql.toString())) {
+        try (PreparedStatement pstmt = conn.prepareStatement(sql.toString())) {
             int paramIndex = 1;
             for (Object value : values) {
                 pstmt.setObject(paramIndex++, value);
@@ -727,12 +1966,18 @@ public class DatabaseManager {
      * @return Num of rows affected
      * */
     public int delete(String tableName, String whereClause, Object[] whereValues) throws SQLException {
+        try (Connection conn = getConnection()) {
+            return delete(conn, tableName, whereClause, whereValues);
+        }
+    }
+
+    // Same as delete above but runs on a connection the caller owns (used inside transactions)
+    private int delete(Connection conn, String tableName, String whereClause, Object[] whereValues) throws SQLException {
         if (whereClause == null || whereClause.trim().isEmpty()) {
             throw new IllegalArgumentException("WHERE clause cannot be null or empty for DELETE.");
         }
 
-        String sql = "DELETE FROM " + tableName + " WHERE " + whereClause;
-        try (PreparedStatement pstmt = connection.prepareStatement(sql)) {
+        try (PreparedStatement pstmt = conn.prepareStatement("DELETE FROM " + tableName + " WHERE " + whereClause)) {
             if (whereValues != null) {
                 for (int i = 0; i < whereValues.length; i++) {
                     pstmt.setObject(i + 1, whereValues[i]);
@@ -747,14 +1992,27 @@ public class DatabaseManager {
         return delete("promotion", "promo_code = ?", new Object[]{promoCode});
     }
 
+    // Unsubscribes a customer from promotion notifications
+    public int deleteSubscription(int customerId) throws SQLException {
+        return delete("promotion_subscription", "customer_id = ?", new Object[]{customerId});
+    }
+
     // Delete flights
     public int deleteFlight(int flightId) throws SQLException {
         return delete("flight", "flight_id = ?", new Object[]{flightId});
     }
 
-    // Delete booking
+    // Delete booking, its seat goes back to the flight in the same transaction
     public int deleteBooking(int bookingId) throws SQLException {
-        return delete("booking", "booking_id = ?", new Object[]{bookingId});
+        return inTransaction(conn -> {
+            Integer flightId = lockBookingFlight(conn, bookingId);
+            if (flightId == null) {
+                return 0;
+            }
+            int deleted = delete(conn, "booking", "booking_id = ?", new Object[]{bookingId});
+            adjustAvailableSeats(conn, flightId, deleted);
+            return deleted;
+        });
     }
 
     // Delete person
@@ -788,20 +2046,24 @@ public class DatabaseManager {
         return delete("person", "person_id = ?", new Object[]{personId});
     }
 
+    // Deletes a customer with their bookings in one transaction, the booked flights get their seats back
     public int deleteCustomer(int customerId) throws SQLException {
-        // First delete any bookings by this customer
-        delete("booking", "customer_id = ?", new Object[]{customerId});
+        return inTransaction(conn -> {
+            // First delete any bookings and seat holds by this customer
+            deleteBookingsByCustomer(conn, customerId);
+            deleteSeatHoldsByCustomer(conn, customerId);
 
-        // Delete from agent_customer table
-        delete("agent_customer", "customer_id = ?", new Object[]{customerId});
+            // Delete from agent_customer table
+            delete(conn, "agent_customer", "customer_id = ?", new Object[]{customerId});
 
-        // Delete from customer table
-        int result = delete("customer", "customer_id = ?", new Object[]{customerId});
+            // Delete from customer table
+            int result = delete(conn, "customer", "customer_id = ?", new Object[]{customerId});
 
-        // Also delete from person table
-        delete("person", "person_id = ?", new Object[]{customerId});
+            // Also delete from person table
+            delete(conn, "person", "person_id = ?", new Object[]{customerId});
 
-        return result;
+            return result;
+        });
     }
 
     // Delete FlightAgent
@@ -819,53 +2081,33 @@ public class DatabaseManager {
     }
 
     public void deleteAirplane(int airplaneId) throws SQLException {
-        try {
-            connection.setAutoCommit(false);
-
-            // 1. Get all flights using this airplane
-            ArrayList<Flight> flights = getAllFlights();
+        // The whole delete runs on one pooled connection so it commits or rolls back together
+        inTransaction(conn -> {
+            // 1. Get the flights using this airplane, on the same connection
             ArrayList<Integer> flightIds = new ArrayList<>();
-
-            for (Flight flight : flights) {
-                if (flight.getAirplane() != null && flight.getAirplane().getAirplaneID() == airplaneId) {
-                    flightIds.add(flight.getFlightID());
+            try (PreparedStatement pstmt = conn.prepareStatement("SELECT flight_id FROM flight WHERE airplane_id = ?")) {
+                pstmt.setInt(1, airplaneId);
+                try (ResultSet rs = pstmt.executeQuery()) {
+                    while (rs.next()) {
+                        flightIds.add(rs.getInt("flight_id"));
+                    }
                 }
             }
 
             // 2. For each flight, delete related bookings first
             for (Integer flightId : flightIds) {
                 // Delete bookings for this flight
-                delete("booking", "flight_id = ?", new Object[]{flightId});
+                delete(conn, "booking", "flight_id = ?", new Object[]{flightId});
             }
 
             // 3. Delete the flights
             for (Integer flightId : flightIds) {
-                delete("flight", "flight_id = ?", new Object[]{flightId});
+                delete(conn, "flight", "flight_id = ?", new Object[]{flightId});
             }
 
             // 4. Finally delete the airplane
-            delete("airplane", "airplane_id = ?", new Object[]{airplaneId});
-
-            connection.commit();
-
-        }
-        catch (SQLException e) {
-            //
-            try {
-                connection.rollback();
-            }
-            catch (SQLException rollbackEx) {
-                System.out.println("Rollback error.");
-            }
-        }
-        finally {
-            try {
-                connection.setAutoCommit(true);
-            }
-            catch (SQLException autoCommitEx) {
-                System.out.println("Auto commit failed");
-            }
-        }
+            return delete(conn, "airplane", "airplane_id = ?", new Object[]{airplaneId});
+        }); // Rolled back and rethrown if any step fails
     }
 
     // Deleting address
@@ -898,14 +2140,42 @@ public class DatabaseManager {
     }
 
 
-    // Deleting booking by customer
+    // Deleting booking by customer, every affected flight gets its seats back
     public int deleteBookingByCustomer(int customerId) throws SQLException {
-        return delete("booking", "customer_id = ?", new Object[]{customerId});
+        return inTransaction(conn -> deleteBookingsByCustomer(conn, customerId));
+    }
+
+    // Gives the seats of a customer's bookings back to their flights and deletes the bookings, on the caller's transaction
+    private int deleteBookingsByCustomer(Connection conn, int customerId) throws SQLException {
+        String restoreSeats = "UPDATE flight f JOIN (SELECT flight_id, COUNT(*) AS seats FROM booking " +
+            "WHERE customer_id = ? GROUP BY flight_id) b ON f.flight_id = b.flight_id " +
+            "SET f.available_seats = f.available_seats + b.seats";
+        try (PreparedStatement pstmt = conn.prepareStatement(restoreSeats)) {
+            pstmt.setInt(1, customerId);
+            pstmt.executeUpdate();
+        }
+        return delete(conn, "booking", "customer_id = ?", new Object[]{customerId});
+    }
+
+    // Gives the seats of a customer's holds back to their flights and deletes the holds, on the caller's transaction
+    private int deleteSeatHoldsByCustomer(Connection conn, int customerId) throws SQLException {
+        String restoreSeats = "UPDATE flight f JOIN (SELECT flight_id, COUNT(*) AS seats FROM seat_hold " +
+            "WHERE customer_id = ? GROUP BY flight_id) h ON f.flight_id = h.flight_id " +
+            "SET f.available_seats = f.available_seats + h.seats";
+        try (PreparedStatement pstmt = conn.prepareStatement(restoreSeats)) {
+            pstmt.setInt(1, customerId);
+            pstmt.executeUpdate();
+        }
+        return delete(conn, "seat_hold", "customer_id = ?", new Object[]{customerId});
     }
 
-    // Delete booking by flight
+    // Delete booking by flight, the flight gets all the seats back
     public int deleteBookingByFlight(int flightId) throws SQLException {
-        return delete("booking", "flight_id = ?", new Object[]{flightId});
+        return inTransaction(conn -> {
+            int deleted = delete(conn, "booking", "flight_id = ?", new Object[]{flightId});
+            adjustAvailableSeats(conn, flightId, deleted);
+            return deleted;
+        });
     }
 
 
@@ -923,7 +2193,8 @@ public class DatabaseManager {
     // Directly access password to avoid putting it in model
     public String getPasswordForUser(int personId) throws SQLException {
         String query = "SELECT password FROM person WHERE person_id = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setInt(1, personId);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
@@ -936,7 +2207,8 @@ public class DatabaseManager {
     // Helper function for early development
     public Airline getAirlineByName(String airlineName) throws SQLException {
         String query = "SELECT * FROM airline WHERE airline_name = ?";
-        try (PreparedStatement pstmt = connection.prepareStatement(query)) {
+        try (Connection conn = getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(query)) {
             pstmt.setString(1, airlineName);
             ResultSet rs = pstmt.executeQuery();
             if (rs.next()) {
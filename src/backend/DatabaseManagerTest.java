@@ -4,6 +4,8 @@ package backend;
 import model.*;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 public class DatabaseManagerTest {
     private static DatabaseManager db = DatabaseManager.getInstance();
@@ -25,7 +27,15 @@ public class DatabaseManagerTest {
             testAirplaneOperations();
             testRouteOperations();
             testFlightOperations();
+            testFlightLoaderRoundTrips();
+            testStatementCache();
+            testBatchInsert();
             testBookingOperations();
+            testGroupBooking();
+            testStreamingReads();
+            testKeysetPaging();
+            testSortedPages();
+            testPromotionSubscriptions();
             testUpdateOperations();
             testDeleteOperations();
             testUtilityMethods();
@@ -220,6 +230,87 @@ public class DatabaseManagerTest {
         System.out.println("✓ Total flights: " + flights.size());
     }
 
+    private static void testFlightLoaderRoundTrips() throws SQLException {
+        System.out.println("\n=== Testing Flight Loader Round Trips ===");
+
+        // Loading all flights must cost one statement no matter how many flights exist
+        long before = db.getExecutedStatementCount();
+        ArrayList<Flight> flights = db.getAllFlights();
+        long firstLoad = db.getExecutedStatementCount() - before;
+        System.out.println("✓ Loaded " + flights.size() + " flights with " + firstLoad + " statement(s)");
+
+        // Add more flights and check the count does not grow with them
+        Flight template = flights.get(0);
+        ArrayList<Integer> extraFlightIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            extraFlightIds.add(db.insertFlight(template.getAirplane().getAirplaneID(), template.getRoute().getRouteID(),
+                template.getDepartureDate(), template.getArrivalDate(), 100, "01:00", 99.99f));
+        }
+
+        before = db.getExecutedStatementCount();
+        ArrayList<Flight> moreFlights = db.getAllFlights();
+        long secondLoad = db.getExecutedStatementCount() - before;
+        System.out.println("✓ Loaded " + moreFlights.size() + " flights with " + secondLoad + " statement(s)");
+
+        for (Integer flightId : extraFlightIds) {
+            db.deleteFlight(flightId);
+        }
+
+        if (firstLoad != 1 || secondLoad != 1) {
+            throw new SQLException("getAllFlights should run exactly one statement, ran " + firstLoad + " and " + secondLoad);
+        }
+
+        // Every flight must come back with its airplane, airline and route filled in
+        for (Flight flight : moreFlights) {
+            if (flight.getAirplane() == null || flight.getAirplane().getAirline() == null || flight.getRoute() == null) {
+                throw new SQLException("Flight " + flight.getFlightID() + " was loaded without its object graph");
+            }
+        }
+        System.out.println("✓ Flight graph loads in a constant number of round trips");
+    }
+
+    private static void testStatementCache() throws SQLException {
+        System.out.println("\n=== Testing Statement Cache ===");
+
+        // The same lookup twice must reuse the prepared statement the first call left in the cache
+        int flightId = db.getAllFlights().get(0).getFlightID();
+        db.getFlightById(flightId);
+        long hitsBefore = db.getStatementCacheHits();
+        long missesBefore = db.getStatementCacheMisses();
+        db.getFlightById(flightId);
+
+        long hits = db.getStatementCacheHits() - hitsBefore;
+        long misses = db.getStatementCacheMisses() - missesBefore;
+        System.out.println("✓ Repeated lookup: " + hits + " hit(s), " + misses + " miss(es)");
+        if (hits != 1 || misses != 0) {
+            throw new SQLException("Repeated getFlightById should be served from the statement cache");
+        }
+    }
+
+    private static void testBatchInsert() throws SQLException {
+        System.out.println("\n=== Testing Batch Insert ===");
+
+        // Five rows committed in chunks of two, keys must come back one per row in row order
+        String[] columns = {"postal_code", "number", "street", "city", "state", "country"};
+        ArrayList<Object[]> rows = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            rows.add(new Object[]{"B" + i, i, "Batch St", "Batchville", "BS", "Testland"});
+        }
+        int[] ids = db.insertBatch("address", columns, rows, true, 2);
+        System.out.println("✓ Batch inserted " + ids.length + " addresses: " + java.util.Arrays.toString(ids));
+
+        for (int id : ids) {
+            db.delete("address", "address_id = ?", new Object[]{id});
+        }
+
+        for (int i = 1; i < ids.length; i++) {
+            if (ids[i] <= ids[i - 1]) {
+                throw new SQLException("Batch insert keys are not in row order");
+            }
+        }
+        System.out.println("✓ Generated keys returned in row order");
+    }
+
     private static void testBookingOperations() throws SQLException {
         System.out.println("\n=== Testing Booking Operations ===");
 
@@ -246,8 +337,198 @@ public class DatabaseManagerTest {
         System.out.println("✓ Updated booking: " + updated + " records");
 
         // Test getting all bookings
+        long before = db.getExecutedStatementCount();
         ArrayList<Booking> bookings = db.getAllBookings();
-        System.out.println("✓ Total bookings: " + bookings.size());
+        long statements = db.getExecutedStatementCount() - before;
+        System.out.println("✓ Total bookings: " + bookings.size() + " loaded with " + statements + " statement(s)");
+        if (statements != 1) {
+            throw new SQLException("getAllBookings should run exactly one statement, ran " + statements);
+        }
+
+        // Bookings of the same customer on the same flight share one Customer and one Flight
+        int seatsBefore = db.getFlightById(flightId).getAvailableSeats();
+        int secondBookingId = db.insertBooking(customerId, flightId, 31);
+        testIdsToCleanup.add(-secondBookingId);
+        if (db.getFlightById(flightId).getAvailableSeats() != seatsBefore - 1) {
+            throw new SQLException("Booking did not take a seat off the flight's counter");
+        }
+        System.out.println("✓ Booking decremented available seats to " + (seatsBefore - 1));
+        ArrayList<Booking> customerBookings = db.getBookings(customerId, flightId);
+        if (customerBookings.size() != 2
+            || customerBookings.get(0).getCustomer() != customerBookings.get(1).getCustomer()
+            || customerBookings.get(0).getFlight() != customerBookings.get(1).getFlight()
+            || customerBookings.get(0).getFlight().getRoute() == null) {
+            throw new SQLException("Filtered booking load did not return shared customer/flight instances");
+        }
+        System.out.println("✓ Filtered bookings share customer and flight instances");
+
+        // Cancelling gives the seat back
+        db.deleteBooking(secondBookingId);
+        if (db.getFlightById(flightId).getAvailableSeats() != seatsBefore) {
+            throw new SQLException("Cancelling did not return the seat to the flight's counter");
+        }
+        System.out.println("✓ Cancellation restored available seats to " + seatsBefore);
+    }
+
+    private static void testGroupBooking() throws SQLException {
+        System.out.println("\n=== Testing Group Booking ===");
+
+        int customerId = db.insertPerson("gb", "Group", "Booker", "1985-05-05", "Customer");
+        testIdsToCleanup.add(customerId);
+        db.insertCustomer(customerId, "group.booker@email.com");
+        int flightId = db.getAllFlights().get(0).getFlightID();
+        int seatsBefore = db.getFlightById(flightId).getAvailableSeats();
+
+        // Three seats, one counter update
+        int[] bookingIds = db.insertGroupBooking(customerId, flightId, new int[]{40, 41, 42});
+        for (int bookingId : bookingIds) {
+            testIdsToCleanup.add(-bookingId);
+        }
+        if (bookingIds.length != 3 || db.getFlightById(flightId).getAvailableSeats() != seatsBefore - 3) {
+            throw new SQLException("Group booking did not book 3 seats and take 3 off the counter");
+        }
+        System.out.println("✓ Booked seats 40-42 in one transaction. IDs: " + Arrays.toString(bookingIds));
+
+        // Seat 42 is taken, so seat 43 must not be booked either
+        boolean rejected = false;
+        try {
+            int[] partial = db.insertGroupBooking(customerId, flightId, new int[]{43, 42});
+            for (int bookingId : partial) {
+                testIdsToCleanup.add(-bookingId);
+            }
+        }
+        catch (SQLException e) {
+            rejected = true;
+            System.out.println("✓ Group with a taken seat was rejected: " + e.getMessage());
+        }
+        if (!rejected || db.getTakenSeats(flightId).get(43)
+            || db.getFlightById(flightId).getAvailableSeats() != seatsBefore - 3) {
+            throw new SQLException("Group booking with a taken seat left a partial booking behind");
+        }
+        System.out.println("✓ Nothing was booked and the counter is unchanged");
+    }
+
+    private static void testStreamingReads() throws SQLException {
+        System.out.println("\n=== Testing Streaming Reads ===");
+
+        // Streamed results must match the fully loaded lists
+        long streamedFlights;
+        try (java.util.stream.Stream<Flight> flights = db.streamFlights()) {
+            streamedFlights = flights.count();
+        }
+        int[] streamedBookings = {0};
+        db.forEachBooking(booking -> streamedBookings[0]++);
+        System.out.println("✓ Streamed " + streamedFlights + " flights and " + streamedBookings[0] + " bookings");
+
+        if (streamedFlights != db.getAllFlights().size() || streamedBookings[0] != db.getAllBookings().size()) {
+            throw new SQLException("Streaming reads returned a different number of rows than getAll*");
+        }
+        System.out.println("✓ Streaming reads match the materialized lists");
+    }
+
+    private static void testKeysetPaging() throws SQLException {
+        System.out.println("\n=== Testing Keyset Paging ===");
+
+        // Walking small pages in either order must visit every flight exactly once
+        java.util.HashSet<Integer> byId = new java.util.HashSet<>();
+        ArrayList<Flight> page = db.getFlightsAfter(0, 2);
+        while (!page.isEmpty()) {
+            for (Flight flight : page) {
+                byId.add(flight.getFlightID());
+            }
+            page = db.getFlightsAfter(page.get(page.size() - 1).getFlightID(), 2);
+        }
+
+        java.util.HashSet<Integer> byDeparture = new java.util.HashSet<>();
+        page = db.getFlightsAfter(null, 0, 2);
+        while (!page.isEmpty()) {
+            for (Flight flight : page) {
+                byDeparture.add(flight.getFlightID());
+            }
+            Flight last = page.get(page.size() - 1);
+            page = db.getFlightsAfter(last.getDepartureDate(), last.getFlightID(), 2);
+        }
+
+        int total = db.getAllFlights().size();
+        System.out.println("✓ Paged " + byId.size() + " flights by id and " + byDeparture.size() + " by departure date");
+        if (byId.size() != total || byDeparture.size() != total) {
+            throw new SQLException("Keyset paging did not visit all " + total + " flights");
+        }
+        System.out.println("✓ First booking page: " + db.getBookingsAfter(0, 2).size() +
+            ", first customer page: " + db.getCustomersAfter(0, 2).size());
+    }
+
+    private static void testSortedPages() throws SQLException {
+        System.out.println("\n=== Testing Sorted Pages ===");
+
+        // Seeking past the previous page and skipping with OFFSET must give the same order
+        int total = db.countFlights();
+        ArrayList<Integer> seeked = new ArrayList<>();
+        ArrayList<Integer> skipped = new ArrayList<>();
+        ArrayList<Flight> page = db.getFlightsPage("departure_date", true, null, 0, 2);
+        while (!page.isEmpty()) {
+            for (Flight flight : page) {
+                seeked.add(flight.getFlightID());
+            }
+            page = db.getFlightsPage("departure_date", true, page.get(page.size() - 1), 0, 2);
+        }
+        for (int offset = 0; offset < total; offset += 2) {
+            for (Flight flight : db.getFlightsPage("departure_date", true, null, offset, 2)) {
+                skipped.add(flight.getFlightID());
+            }
+        }
+        if (seeked.size() != total || !seeked.equals(skipped)) {
+            throw new SQLException("Sorted flight pages did not match: " + seeked + " vs " + skipped);
+        }
+        System.out.println("✓ Paged " + total + " flights by departure date, newest first");
+
+        ArrayList<Booking> bookings = db.getBookingsPage("customer_id", false, null, 0, 3);
+        System.out.println("✓ Bookings: " + db.countBookings() + ", first page by customer: " + bookings.size());
+    }
+
+    private static void testPromotionSubscriptions() throws SQLException, InterruptedException {
+        System.out.println("\n=== Testing Promotion Subscriptions ===");
+
+        int customerId = db.insertPerson("ps", "Promo", "Subscriber", "1991-01-01", "Customer");
+        testIdsToCleanup.add(customerId); // Deleting the customer cascades to the subscription
+        db.insertCustomer(customerId, "promo.subscriber@email.com");
+
+        if (db.insertSubscription(customerId) != 1 || db.insertSubscription(customerId) != 0
+            || !db.isSubscribed(customerId)) {
+            throw new SQLException("Subscribing should store one row and ignore the repeat");
+        }
+        System.out.println("✓ Subscribed customer " + customerId + ", subscribing again was a no-op");
+
+        // Promotions that went live before subscribing are not missed, one published afterwards is, once
+        Thread.sleep(10); // Past the subscription's notified_until on the millisecond clock
+        CustomDate today = CustomDate.StringToDate(java.time.LocalDate.now().toString());
+        db.insertPromotion("TESTMISSED", 0.05, "Published while logged out", today);
+        try {
+            ArrayList<Promotion> missed = db.takeMissedPromotions(customerId);
+            if (missed.size() != 1 || !missed.get(0).getPromoCode().equals("TESTMISSED")
+                || !db.takeMissedPromotions(customerId).isEmpty()) {
+                throw new SQLException("Expected to catch up on TESTMISSED once, got " + missed.size() + " promotions");
+            }
+            System.out.println("✓ Caught up on the promotion published after subscribing, only once");
+
+            Thread.sleep(10);
+            db.insertPromotion("TESTLIVE", 0.05, "Delivered while logged in", today);
+            if (db.markPromotionNotified("TESTLIVE", List.of(customerId)) != 1
+                || !db.takeMissedPromotions(customerId).isEmpty()) {
+                throw new SQLException("A promotion delivered live should not be caught up on again");
+            }
+            System.out.println("✓ A promotion delivered live is not shown again at login");
+        }
+        finally {
+            db.deletePromotion("TESTMISSED");
+            db.deletePromotion("TESTLIVE");
+        }
+
+        db.deleteSubscription(customerId);
+        if (db.isSubscribed(customerId)) {
+            throw new SQLException("Unsubscribing did not remove the subscription");
+        }
+        System.out.println("✓ Unsubscribed customer " + customerId);
     }
 
     private static void testUpdateOperations() throws SQLException {
@@ -289,8 +570,15 @@ public class DatabaseManagerTest {
         // Test 4: Delete customer
         int testCustomerId2 = db.insertPerson("dc2", "Delete", "Customer2", "1996-06-06", "Customer");
         db.insertCustomer(testCustomerId2, "delete.customer2@email.com");
+        int flightId = db.getAllFlights().get(0).getFlightID();
+        int seatsBefore = db.getFlightById(flightId).getAvailableSeats();
+        db.insertBooking(testCustomerId2, flightId, 47);
         deleted = db.deleteCustomer(testCustomerId2);
         System.out.println("✓ Deleted customer: " + deleted + " records");
+        if (db.getFlightById(flightId).getAvailableSeats() != seatsBefore) {
+            throw new SQLException("Deleting a customer did not return their booked seats to the flight");
+        }
+        System.out.println("✓ Deleting the customer restored available seats to " + seatsBefore);
 
         System.out.println("✓ All delete operations tested successfully");
     }
@@ -6,16 +6,26 @@ import java.awt.event.ActionListener;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import model.*;
+import service.CustomerController;
+import service.PromotionManager;
 
 public class AdminGUI extends JFrame {
     private String currentUser;
     private JTabbedPane tabbedPane;
 
     // Flight Management Components
-    private DefaultTableModel flightTableModel;
+    private PagedTableModel<Flight> flightTableModel;
     private JTable flightTable;
     private JButton addFlightButton;
     private JButton editFlightButton;
@@ -23,21 +33,21 @@ public class AdminGUI extends JFrame {
     private JButton refreshFlightsButton;
 
     // User Management Components
-    private DefaultTableModel userTableModel;
+    private KeyedTableModel userTableModel;
     private JTable userTable;
     private JButton addUserButton;
     private JButton editUserButton;
     private JButton removeUserButton;
 
     // Route Management Components
-    private DefaultTableModel routeTableModel;
+    private KeyedTableModel routeTableModel;
     private JTable routeTable;
     private JButton addRouteButton;
     private JButton removeRouteButton;
     private JButton refreshRoutesButton;
 
     // Airplane Management Components
-    private DefaultTableModel airplaneTableModel;
+    private KeyedTableModel airplaneTableModel;
     private JTable airplaneTable;
     private JButton addAirplaneButton;
     private JButton editAirplaneButton;
@@ -45,7 +55,7 @@ public class AdminGUI extends JFrame {
     private JButton refreshAirplanesButton;
 
     // Promotion Management Components
-    private DefaultTableModel promotionTableModel;
+    private KeyedTableModel promotionTableModel;
     private JTable promotionTable;
     private JButton addPromotionButton;
     private JButton editPromotionButton;
@@ -54,11 +64,52 @@ public class AdminGUI extends JFrame {
 
     // Database Manager For Connectivity
     private DatabaseManager db = DatabaseManager.getInstance();
+    private CustomerController customerController = new CustomerController();
+
+    // Runs the table loads off the EDT
+    private final BackgroundLoader loader = new BackgroundLoader();
+
+    // The flight table only holds the pages around what is on screen
+    private static final int FLIGHT_PAGE_SIZE = 100;
+    private static final int FLIGHT_CACHED_PAGES = 20;
+
+    // Tabs are built when first selected, while the rows of the other tabs are fetched in parallel in the background
+    private final ArrayList<Supplier<JPanel>> tabBuilders = new ArrayList<>(); // Per tab, null once built
+    private final ExecutorService prefetcher = Executors.newVirtualThreadPerTaskExecutor();
+    private final HashMap<String, CompletableFuture<ArrayList<Object[]>>> prefetched = new HashMap<>(); // EDT only
+    private CompletableFuture<Void> connected; // The admin connection pool is ready, every load waits for it
 
     public AdminGUI(String username) {
         this.currentUser = username;
-        db.connect("admin_user", "admin_password");
+        // Connecting opens a connection, done in the background so the window shows right away
+        connected = CompletableFuture.runAsync(() -> {
+            if (!db.connect("admin_user", "admin_password")) {
+                throw new CompletionException(new SQLException("Could not connect to the database as admin_user."));
+            }
+        }, prefetcher);
         initializeGUI();
+        prefetchTables();
+        // Reported once here, the loads waiting on the connection only show it in the status bar
+        connected.exceptionally(e -> {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                "Database connection failed: " + e.getCause().getMessage(),
+                "Connection Error",
+                JOptionPane.ERROR_MESSAGE));
+            return null;
+        });
+    }
+
+    // Waits for the connection opened by the constructor, called off the EDT before every load
+    private void awaitConnection() throws SQLException {
+        try {
+            connected.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            throw e;
+        }
     }
 
     private void initializeGUI() {
@@ -87,25 +138,66 @@ public class AdminGUI extends JFrame {
         tabbedPane = new JTabbedPane();
 
         // Flight Management Tab
-        tabbedPane.addTab("Flight Management", createFlightManagementPanel());
+        addLazyTab("Flight Management", this::createFlightManagementPanel);
 
         // User Management Tab
-        tabbedPane.addTab("User Management", createUserManagementPanel());
+        addLazyTab("User Management", this::createUserManagementPanel);
 
         // Route Management Tab
-        tabbedPane.addTab("Route Management", createRouteManagementPanel());
+        addLazyTab("Route Management", this::createRouteManagementPanel);
 
         // Airplane Management Tab
-        tabbedPane.addTab("Airplane Management", createAirplaneManagementPanel());
+        addLazyTab("Airplane Management", this::createAirplaneManagementPanel);
 
         // Promotion Management Tab
-        tabbedPane.addTab("Promotion Management", createPromotionManagementPanel());
+        addLazyTab("Promotion Management", this::createPromotionManagementPanel);
+
+        tabbedPane.addChangeListener(e -> buildTab(tabbedPane.getSelectedIndex()));
+        buildTab(tabbedPane.getSelectedIndex());
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
+        mainPanel.add(loader.getStatusBar(), BorderLayout.SOUTH);
 
         add(mainPanel);
     }
 
+    // Adds a tab with an empty placeholder, the builder fills it the first time the tab is selected
+    private void addLazyTab(String title, Supplier<JPanel> builder) {
+        tabbedPane.addTab(title, new JPanel(new BorderLayout()));
+        tabBuilders.add(builder);
+    }
+
+    private void buildTab(int index) {
+        if (index < 0 || tabBuilders.get(index) == null) {
+            return;
+        }
+        Supplier<JPanel> builder = tabBuilders.set(index, null);
+        JPanel placeholder = (JPanel) tabbedPane.getComponentAt(index);
+        placeholder.add(builder.get(), BorderLayout.CENTER);
+        placeholder.revalidate();
+    }
+
+    // Starts fetching the rows of the whole-list tables, each table takes its rows when its tab is first built
+    private void prefetchTables() {
+        prefetch("users", this::fetchUserRows);
+        prefetch("routes", this::fetchRouteRows);
+        prefetch("airplanes", this::fetchAirplaneRows);
+        prefetch("promotions", this::fetchPromotionRows);
+    }
+
+    private void prefetch(String table, Callable<ArrayList<Object[]>> fetch) {
+        prefetched.put(table, connected.thenApplyAsync(ignored -> call(fetch), prefetcher));
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        }
+        catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
     private JPanel createFlightManagementPanel() {
         JPanel panel = new JPanel(new BorderLayout());
         panel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
@@ -131,42 +223,27 @@ public class AdminGUI extends JFrame {
 
         // Flight table
         String[] columnNames = {"Flight ID", "Airplane ID", "Route ID", "Departure Date", "Arrival Date", "Available Seats", "Length (HH:MM)", "Price"};
-        Object[][] data = {}; // default in case of failure
-
-        try {
-            ArrayList<Flight> flights = db.getAllFlights();
-
-            data = new Object[flights.size()][columnNames.length];
-
-            for (int i = 0; i < flights.size(); i++) {
-                Flight f = flights.get(i);
-
-                data[i] = new Object[]{
-                    f.getFlightID(),
-                    f.getAirplane().getAirplaneID(),
-                    f.getRoute().getRouteID(),
-                    f.getDepartureDate().toSQLDate(),
-                    f.getArrivalDate().toSQLDate(),
-                    f.getAvailableSeats(),
-                    f.getFlightTime(),
-                    f.getPrice(),
-                };
+        String[] sortKeys = {"flight_id", "airplane_id", "route_id", "departure_date", "arrival_date", "available_seats", "flight_length", "price"};
+        flightTableModel = new PagedTableModel<>("flights", columnNames, sortKeys, new PagedTableModel.PageSource<>() {
+            @Override
+            public int count() throws SQLException {
+                awaitConnection();
+                return db.countFlights();
             }
 
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            System.err.println("Error loading flights from database.");
-        }
-        flightTableModel = new DefaultTableModel(data, columnNames){
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            public java.util.List<Flight> fetch(String sortBy, boolean descending, Flight after, int offset, int limit) throws SQLException {
+                awaitConnection();
+                return db.getFlightsPage(sortBy, descending, after, offset, limit);
             }
-        };
+        }, AdminGUI::flightRow, loader, FLIGHT_PAGE_SIZE, FLIGHT_CACHED_PAGES);
         flightTable = new JTable(flightTableModel);
+        flightTableModel.installSorting(flightTable);
         JScrollPane scrollPane = new JScrollPane(flightTable);
         panel.add(scrollPane, BorderLayout.CENTER);
 
+        loadFlights();
+
         return panel;
     }
 
@@ -192,88 +269,13 @@ public class AdminGUI extends JFrame {
 
         // User table
         String[] columnNames = {"User ID", "Username", "First Name", "Last Name", "Date of Birth", "Role", "Email"};
-        Object[][] data = {};
-        try {
-            ArrayList<Object> people = new ArrayList<>();
-            ArrayList<Customer> customers = db.getAllCustomers();
-            ArrayList<Admin> admins = db.getAllAdmins();
-            ArrayList<FlightAgent> agents = db.getAllAgents();
-            people.addAll(customers);
-            people.addAll(admins);
-            people.addAll(agents);
-
-            people.sort(new Comparator<Object>() {
-            @Override
-            public int compare(Object o1, Object o2) {
-                int id1 = getId(o1);
-                int id2 = getId(o2);
-                return Integer.compare(id1, id2);
-            }
-
-            private int getId(Object obj) {
-                if (obj instanceof Customer) {
-                    return ((Customer) obj).getId();
-                } else if (obj instanceof Admin) {
-                    return ((Admin) obj).getId();
-                } else if (obj instanceof FlightAgent) {
-                    return ((FlightAgent) obj).getId();
-                } else {
-                    return 0;
-                }
-            }
-        });
-            data = new Object[people.size()][columnNames.length];
-
-            for (int i = 0; i < people.size(); i++) {
-                Object p = people.get(i);
-                if(p instanceof Customer){
-                    data[i] = new Object[]{
-                        ((Customer) p).getId(),
-                        ((Customer) p).getUsername(),
-                        ((Customer) p).getFirstName(),
-                        ((Customer) p).getLastName(),
-                        ((Customer) p).getDoB().toSQLDate(),
-                        "Customer",
-                        ((Customer) p).getEmail()
-                    };
-                }
-                else if(p instanceof FlightAgent){
-                    data[i] = new Object[]{
-                        ((FlightAgent) p).getId(),
-                        ((FlightAgent) p).getUsername(),
-                        ((FlightAgent) p).getFirstName(),
-                        ((FlightAgent) p).getLastName(),
-                        ((FlightAgent) p).getDoB().toSQLDate(),
-                        "FlightAgent",
-                        ""
-                    };
-                }
-                else if(p instanceof Admin){
-                    data[i] = new Object[]{
-                        ((Admin) p).getId(),
-                        ((Admin) p).getUsername(),
-                        ((Admin) p).getFirstName(),
-                        ((Admin) p).getLastName(),
-                        ((Admin) p).getDoB().toSQLDate(),
-                        "Admin",
-                        ""
-                    };
-                }
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            System.err.println("Error loading users from database.");
-        }
-        userTableModel = new DefaultTableModel(data, columnNames){
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        userTableModel = new KeyedTableModel(columnNames);
         userTable = new JTable(userTableModel);
         JScrollPane scrollPane = new JScrollPane(userTable);
         panel.add(scrollPane, BorderLayout.CENTER);
 
+        loadUsers();
+
         return panel;
     }
 
@@ -300,44 +302,13 @@ public class AdminGUI extends JFrame {
         // Route table
         String[] columnNames = {"Route ID", "Origin Address", "Origin City", "Origin Country", 
                                "Destination Address", "Destination City", "Destination Country"};
-        Object[][] data = {};
-        try {
-            ArrayList<Route> routes = db.getAllRoutes();
-            data = new Object[routes.size()][columnNames.length];
-
-            for (int i = 0; i < routes.size(); i++) {
-                Route r = routes.get(i);
-                Address origin = r.getDepartureLocation();
-                Address destination = r.getArrivalLocation();
-                
-                String originAddress = origin.getStreet() + " " + origin.getNumber() + ", " + origin.getPostalCode();
-                String destinationAddress = destination.getStreet() + " " + destination.getNumber() + ", " + destination.getPostalCode();
-                
-                data[i] = new Object[]{
-                    r.getRouteID(),
-                    originAddress,
-                    origin.getCity(),
-                    origin.getCountry(),
-                    destinationAddress,
-                    destination.getCity(),
-                    destination.getCountry()
-                };
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            System.err.println("Error loading routes from database.");
-        }
-        
-        routeTableModel = new DefaultTableModel(data, columnNames){
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        routeTableModel = new KeyedTableModel(columnNames);
         routeTable = new JTable(routeTableModel);
         JScrollPane scrollPane = new JScrollPane(routeTable);
         panel.add(scrollPane, BorderLayout.CENTER);
 
+        loadRoutes();
+
         return panel;
     }
 
@@ -366,35 +337,13 @@ public class AdminGUI extends JFrame {
 
         // Airplane table
         String[] columnNames = {"Airplane ID", "Airline", "Name", "Flight Number"};
-        Object[][] data = {};
-        try {
-            ArrayList<Airplane> airplanes = db.getAllAirplanes();
-            data = new Object[airplanes.size()][columnNames.length];
-
-            for (int i = 0; i < airplanes.size(); i++) {
-                Airplane a = airplanes.get(i);
-                data[i] = new Object[]{
-                    a.getAirplaneID(),
-                    a.getAirline().getName(),
-                    a.getName(),
-                    a.getFlightNumber()
-                };
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            System.err.println("Error loading airplanes from database.");
-        }
-        
-        airplaneTableModel = new DefaultTableModel(data, columnNames){
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        airplaneTableModel = new KeyedTableModel(columnNames);
         airplaneTable = new JTable(airplaneTableModel);
         JScrollPane scrollPane = new JScrollPane(airplaneTable);
         panel.add(scrollPane, BorderLayout.CENTER);
 
+        loadAirplanes();
+
         return panel;
     }
 
@@ -423,38 +372,173 @@ public class AdminGUI extends JFrame {
 
         // Promotion table
         String[] columnNames = {"Promo Code", "Discount Rate", "Description", "Start Date"};
-        Object[][] data = {};
-        try {
-            ArrayList<Promotion> promotions = db.getAllPromotions();
-            data = new Object[promotions.size()][columnNames.length];
-
-            for (int i = 0; i < promotions.size(); i++) {
-                Promotion p = promotions.get(i);
-                data[i] = new Object[]{
-                    p.getPromoCode(),
-                    p.getDiscountRate() * 100 + "%",
-                    p.getDescription(),
-                    p.getStartDate().toSQLDate()
-                };
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            System.err.println("Error loading promotions from database.");
-        }
-        
-        promotionTableModel = new DefaultTableModel(data, columnNames){
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        promotionTableModel = new KeyedTableModel(columnNames);
         promotionTable = new JTable(promotionTableModel);
         JScrollPane scrollPane = new JScrollPane(promotionTable);
         panel.add(scrollPane, BorderLayout.CENTER);
 
+        loadPromotions();
+
         return panel;
     }
 
+    // Background loads, the rows are built off the EDT and diffed into the table by id (flights are paged instead)
+    private void loadFlights() {
+        flightTableModel.refresh();
+    }
+
+    private static Object[] flightRow(Flight f) {
+        return new Object[]{
+            f.getFlightID(),
+            f.getAirplane().getAirplaneID(),
+            f.getRoute().getRouteID(),
+            f.getDepartureDate().toSQLDate(),
+            f.getArrivalDate().toSQLDate(),
+            f.getAvailableSeats(),
+            f.getFlightTime(),
+            f.getPrice(),
+        };
+    }
+
+    private void loadUsers() {
+        loadRows("users", this::fetchUserRows, userTableModel);
+    }
+
+    private void loadRoutes() {
+        loadRows("routes", this::fetchRouteRows, routeTableModel);
+    }
+
+    private void loadAirplanes() {
+        loadRows("airplanes", this::fetchAirplaneRows, airplaneTableModel);
+    }
+
+    private void loadPromotions() {
+        loadRows("promotions", this::fetchPromotionRows, promotionTableModel);
+    }
+
+    // Loads a table's rows, the first load takes the prefetched ones and later loads (refreshes) fetch them again
+    private void loadRows(String table, Callable<ArrayList<Object[]>> fetch, KeyedTableModel model) {
+        CompletableFuture<ArrayList<Object[]>> prefetch = prefetched.remove(table);
+        loader.load(table, table, progress -> {
+            if (prefetch != null) {
+                try {
+                    return prefetch.get();
+                }
+                catch (ExecutionException e) {
+                    // Fetched again below, the error is reported if that fails too
+                }
+            }
+            awaitConnection();
+            return fetch.call();
+        }, model::setRows);
+    }
+
+    // The three user queries run in parallel, each on its own pooled connection
+    private ArrayList<Object[]> fetchUserRows() throws SQLException {
+        CompletableFuture<ArrayList<Customer>> customers = CompletableFuture.supplyAsync(() -> call(db::getAllCustomers), prefetcher);
+        CompletableFuture<ArrayList<Admin>> admins = CompletableFuture.supplyAsync(() -> call(db::getAllAdmins), prefetcher);
+        ArrayList<Person> people = new ArrayList<>(db.getAllAgents());
+        try {
+            people.addAll(customers.join());
+            people.addAll(admins.join());
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof SQLException sql) {
+                throw sql;
+            }
+            throw e;
+        }
+        people.sort(Comparator.comparingInt(Person::getId));
+
+        ArrayList<Object[]> rows = new ArrayList<>(people.size());
+        for (Person p : people) {
+            String role = p instanceof Customer ? "Customer" : p instanceof FlightAgent ? "FlightAgent" : "Admin";
+            rows.add(new Object[]{
+                p.getId(),
+                p.getUsername(),
+                p.getFirstName(),
+                p.getLastName(),
+                p.getDoB().toSQLDate(),
+                role,
+                p instanceof Customer c ? c.getEmail() : ""
+            });
+        }
+        return rows;
+    }
+
+    private ArrayList<Object[]> fetchRouteRows() throws SQLException {
+        ArrayList<Route> routes = db.getAllRoutes();
+        ArrayList<Object[]> rows = new ArrayList<>(routes.size());
+        for (Route r : routes) {
+            Address origin = r.getDepartureLocation();
+            Address destination = r.getArrivalLocation();
+
+            String originAddress = origin.getStreet() + " " + origin.getNumber() + ", " + origin.getPostalCode();
+            String destinationAddress = destination.getStreet() + " " + destination.getNumber() + ", " + destination.getPostalCode();
+
+            rows.add(new Object[]{
+                r.getRouteID(),
+                originAddress,
+                origin.getCity(),
+                origin.getCountry(),
+                destinationAddress,
+                destination.getCity(),
+                destination.getCountry()
+            });
+        }
+        return rows;
+    }
+
+    private ArrayList<Object[]> fetchAirplaneRows() throws SQLException {
+        ArrayList<Airplane> airplanes = db.getAllAirplanes();
+        ArrayList<Object[]> rows = new ArrayList<>(airplanes.size());
+        for (Airplane a : airplanes) {
+            rows.add(new Object[]{
+                a.getAirplaneID(),
+                a.getAirline().getName(),
+                a.getName(),
+                a.getFlightNumber()
+            });
+        }
+        return rows;
+    }
+
+    private ArrayList<Object[]> fetchPromotionRows() throws SQLException {
+        ArrayList<Promotion> promotions = db.getAllPromotions();
+        ArrayList<Object[]> rows = new ArrayList<>(promotions.size());
+        for (Promotion p : promotions) {
+            rows.add(new Object[]{
+                p.getPromoCode(),
+                p.getDiscountRate() * 100 + "%",
+                p.getDescription(),
+                p.getStartDate().toSQLDate()
+            });
+        }
+        return rows;
+    }
+
+    // Fills an airline dropdown in the background and selects the given airline if it is there
+    private void loadAirlines(JComboBox<String> comboBox, String selectedAirline) {
+        loader.load("airlines", "airlines", progress -> {
+            awaitConnection();
+            ArrayList<String> names = new ArrayList<>();
+            for (Airline airline : db.getAllAirlines()) {
+                names.add(airline.getName());
+            }
+            return names;
+        }, names -> {
+            for (String name : names) {
+                comboBox.addItem(name);
+            }
+            if (selectedAirline != null) {
+                comboBox.setSelectedItem(selectedAirline);
+            }
+        }, ex -> JOptionPane.showMessageDialog(SwingUtilities.getWindowAncestor(comboBox),
+                "Error loading airlines: " + ex.getMessage(),
+                "Database Error",
+                JOptionPane.ERROR_MESSAGE));
+    }
+
     // Action Listeners
     private class AddFlightListener implements ActionListener {
         @Override
@@ -475,6 +559,9 @@ public class AdminGUI extends JFrame {
                         JOptionPane.WARNING_MESSAGE);
                 return;
             }
+            if (!flightTableModel.isRowLoaded(selectedRow)) {
+                return; // Still loading, the values are not known yet
+            }
 
             Object flightID = flightTableModel.getValueAt(selectedRow, 0);
             Object airplaneID = flightTableModel.getValueAt(selectedRow, 1);
@@ -523,14 +610,14 @@ public class AdminGUI extends JFrame {
                     "Confirm Delete",
                     JOptionPane.YES_NO_OPTION);
 
-            if (confirm != JOptionPane.YES_OPTION) return;
+            if (confirm != JOptionPane.YES_OPTION || !flightTableModel.isRowLoaded(selectedRow)) return;
 
-            int flightID = (int) flightTableModel.getValueAt(selectedRow, 0);
+            int flightID = flightTableModel.getItem(selectedRow).getFlightID();
 
             int result = db.deleteFlight(flightID);
 
             if (result >= 1) {
-                flightTableModel.removeRow(selectedRow);
+                flightTableModel.refresh();
                 JOptionPane.showMessageDialog(AdminGUI.this,
                         "Flight deleted successfully.",
                         "Flight Removed",
@@ -562,27 +649,8 @@ public class AdminGUI extends JFrame {
 
     private class RefreshFlightsListener implements ActionListener {
         @Override
-            public void actionPerformed(ActionEvent e) {
-            flightTableModel.setRowCount(0);
-            ArrayList<Flight> data;
-            try {
-                data = db.getAllFlights();
-                for (Flight f : data) {
-                    Object[] row = {
-                        f.getFlightID(),
-                        f.getAirplane().getAirplaneID(),
-                        f.getRoute().getRouteID(),
-                        f.getDepartureDate().toSQLDate(),
-                        f.getArrivalDate().toSQLDate(),
-                        f.getAvailableSeats(),
-                        f.getFlightTime(),
-                        f.getPrice(),
-                    };
-                    flightTableModel.addRow(row);
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-            }
+        public void actionPerformed(ActionEvent e) {
+            loadFlights();
         }
     }
 
@@ -661,7 +729,7 @@ public class AdminGUI extends JFrame {
             String role = (String) userTableModel.getValueAt(selectedRow, 5);
             int result = 0;
             if(role.equalsIgnoreCase("Customer")){
-                result = db.deleteCustomer(personID);
+                result = customerController.deleteCustomer(personID) ? 1 : 0; // Also frees the seats of their bookings
             }
             else if(role.equalsIgnoreCase("FlightAgent")){
                 result = db.deleteAgent(personID);
@@ -770,35 +838,7 @@ public class AdminGUI extends JFrame {
     private class RefreshRoutesListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            routeTableModel.setRowCount(12);
-            ArrayList<Route> routes;
-            try {
-                routes = db.getAllRoutes();
-                for (Route r : routes) {
-                    Address origin = r.getDepartureLocation();
-                    Address destination = r.getArrivalLocation();
-                    
-                    String originAddress = origin.getStreet() + " " + origin.getNumber() + ", " + origin.getPostalCode();
-                    String destinationAddress = destination.getStreet() + " " + destination.getNumber() + ", " + destination.getPostalCode();
-                    
-                    Object[] row = {
-                        r.getRouteID(),
-                        originAddress,
-                        origin.getCity(),
-                        origin.getCountry(),
-                        destinationAddress,
-                        destination.getCity(),
-                        destination.getCountry()
-                    };
-                    routeTableModel.addRow(row);
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(AdminGUI.this,
-                        "Error loading routes: " + ex.getMessage(),
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            loadRoutes();
         }
     }
 
@@ -893,26 +933,7 @@ public class AdminGUI extends JFrame {
     private class RefreshAirplanesListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            airplaneTableModel.setRowCount(0);
-            ArrayList<Airplane> airplanes;
-            try {
-                airplanes = db.getAllAirplanes();
-                for (Airplane a : airplanes) {
-                    Object[] row = {
-                        a.getAirplaneID(),
-                        a.getAirline().getName(),
-                        a.getName(),
-                        a.getFlightNumber()
-                    };
-                    airplaneTableModel.addRow(row);
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(AdminGUI.this,
-                        "Error loading airplanes: " + ex.getMessage(),
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            loadAirplanes();
         }
     }
 
@@ -1028,26 +1049,7 @@ public class AdminGUI extends JFrame {
     private class RefreshPromotionsListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            promotionTableModel.setRowCount(0);
-            ArrayList<Promotion> promotions;
-            try {
-                promotions = db.getAllPromotions();
-                for (Promotion p : promotions) {
-                    Object[] row = {
-                        p.getPromoCode(),
-                        p.getDiscountRate() * 100 + "%",
-                        p.getDescription(),
-                        p.getStartDate().toSQLDate()
-                    };
-                    promotionTableModel.addRow(row);
-                }
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(AdminGUI.this,
-                        "Error loading promotions: " + ex.getMessage(),
-                        "Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
+            loadPromotions();
         }
     }
 
@@ -1060,6 +1062,8 @@ public class AdminGUI extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
             if (result == JOptionPane.YES_OPTION) {
+                loader.cancelAll();
+                prefetcher.shutdownNow();
                 dispose();
                 new LoginGUI().setVisible(true);
             }
@@ -1070,9 +1074,9 @@ public class AdminGUI extends JFrame {
     private class AddFlightDialog extends JDialog {
         private JTextField airplaneIDField, routeIDField, departureField, arrivalField,
                 seatsField, lengthField, priceField;
-        private DefaultTableModel model;
+        private PagedTableModel<Flight> model;
 
-        public AddFlightDialog(JFrame parent, DefaultTableModel model) {
+        public AddFlightDialog(JFrame parent, PagedTableModel<Flight> model) {
             super(parent, "Add New Flight", true);
             this.model = model;
             setSize(400, 450);
@@ -1128,17 +1132,8 @@ public class AdminGUI extends JFrame {
                 int seatsAvailable = Integer.parseInt(seatsField.getText());
                 String flightTime = lengthField.getText();
                 float price = Float.parseFloat(priceField.getText());
-                Object[] rowData = {
-                        db.insertFlight(airplane_id, route_id,  departure, arrival, seatsAvailable, flightTime, price),
-                        airplane_id,
-                        route_id,
-                        departureDate,
-                        arrivalDate,
-                        seatsAvailable,
-                        flightTime,
-                        price,
-                };
-                flightTableModel.addRow(rowData);
+                db.insertFlight(airplane_id, route_id,  departure, arrival, seatsAvailable, flightTime, price);
+                model.refresh(); // The new flight goes wherever the current sort puts it
 
                 JOptionPane.showMessageDialog(this, "Flight added successfully.");
                 dispose();
@@ -1156,11 +1151,11 @@ public class AdminGUI extends JFrame {
     private class EditFlightDialog extends JDialog {
         private JTextField airplaneIDField, routeIDField, departureField, arrivalField,
                 seatsField, lengthField, priceField;
-        private DefaultTableModel model;
+        private PagedTableModel<Flight> model;
         private int rowIndex;
         private Object flightID;
 
-        public EditFlightDialog(JFrame parent, DefaultTableModel model, int rowIndex,
+        public EditFlightDialog(JFrame parent, PagedTableModel<Flight> model, int rowIndex,
                                 Object flightID, Object airplaneID, Object routeID,
                                 Object departureDate, Object arrivalDate, Object seatsAvailable,
                                 Object flightTime, Object price) {
@@ -1224,13 +1219,7 @@ public class AdminGUI extends JFrame {
                 float price = Float.parseFloat(priceField.getText());
 
                 db.updateFlight((int)flightID, airplane_id, route_id, departure, arrival, seatsAvailable, flightTime, price);
-                model.setValueAt(airplane_id, rowIndex, 1);
-                model.setValueAt(route_id, rowIndex, 2);
-                model.setValueAt(departureField.getText(), rowIndex, 3);
-                model.setValueAt(arrivalField.getText(), rowIndex, 4);
-                model.setValueAt(seatsAvailable, rowIndex, 5);
-                model.setValueAt(flightTime, rowIndex, 6);
-                model.setValueAt(price, rowIndex, 7);
+                model.refresh(); // The row may move under the current sort
 
                 JOptionPane.showMessageDialog(this, "Flight updated successfully.");
                 dispose();
@@ -1761,25 +1750,9 @@ public class AdminGUI extends JFrame {
 
             formPanel.add(new JLabel("Airline:"));
 
-            // Create and populate the dropdown
-            ArrayList<Airline> airlines = new ArrayList<>();
-            try {
-                airlines = db.getAllAirlines();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this,
-                        "Error loading airlines: " + ex.getMessage(),
-                        "Database Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
-
-            // Extract airline names for the dropdown
-            String[] airlineNames = new String[airlines.size()];
-            for (int i = 0; i < airlines.size(); i++) {
-                airlineNames[i] = airlines.get(i).getName();
-            }
-
-            airlineComboBox = new JComboBox<>(airlineNames);
+            // Create the dropdown, the airlines are filled in once loaded
+            airlineComboBox = new JComboBox<>();
+            loadAirlines(airlineComboBox, null);
             formPanel.add(airlineComboBox);
 
             formPanel.add(new JLabel("Model Name:"));
@@ -1865,33 +1838,9 @@ public class AdminGUI extends JFrame {
 
             formPanel.add(new JLabel("Airline:"));
 
-            // Create and populate the dropdown
-            ArrayList<Airline> airlines = new ArrayList<>();
-            try {
-                airlines = db.getAllAirlines();
-            } catch (SQLException ex) {
-                ex.printStackTrace();
-                JOptionPane.showMessageDialog(this,
-                        "Error loading airlines: " + ex.getMessage(),
-                        "Database Error",
-                        JOptionPane.ERROR_MESSAGE);
-            }
-
-            // Extract airline names for the dropdown
-            String[] airlineNames = new String[airlines.size()];
-            for (int i = 0; i < airlines.size(); i++) {
-                airlineNames[i] = airlines.get(i).getName();
-            }
-
-            airlineComboBox = new JComboBox<>(airlineNames);
-
-            // Set the selected item to the current airline
-            for (int i = 0; i < airlineNames.length; i++) {
-                if (airlineNames[i].equals(originalAirlineName)) {
-                    airlineComboBox.setSelectedIndex(i);
-                    break;
-                }
-            }
+            // Create the dropdown, the airlines are filled in once loaded and the current one selected
+            airlineComboBox = new JComboBox<>();
+            loadAirlines(airlineComboBox, originalAirlineName);
 
             formPanel.add(airlineComboBox);
 
@@ -2015,6 +1964,9 @@ public class AdminGUI extends JFrame {
 
                 CustomDate startDate = CustomDate.StringToDate(startDateStr);
                 db.insertPromotion(promoCode, discountRate / 100, description, startDate);
+                // Subscribed customers are notified in the background
+                PromotionManager.getInstance().addPromotion(
+                    new Promotion(promoCode, discountRate / 100, description, startDate));
 
                 Object[] rowData = {
                     promoCode,
@@ -0,0 +1,216 @@
+// BackgroundLoader.java
+// Runs database loads off the Event Dispatch Thread with SwingWorker and applies the results back on it
+// Loads are keyed: a new request for a key supersedes the one in progress, whose result is then dropped,
+// and requests made in the same event are coalesced into one load. A status bar shows what is loading.
+package gui;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+import javax.swing.BorderFactory;
+import javax.swing.JComponent;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JProgressBar;
+import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
+
+public class BackgroundLoader {
+
+    // Work done off the EDT, must not touch Swing components
+    @FunctionalInterface
+    public interface LoadTask<T> {
+        T load(Progress progress) throws Exception;
+    }
+
+    // Lets a task report how far it got and notice that it was superseded or cancelled
+    public interface Progress {
+        void update(int done, int total);
+        boolean isCancelled();
+    }
+
+    // Everything below is only touched on the EDT
+    private final Map<String, Load<?>> running = new LinkedHashMap<>(); // key -> current load
+    private final Map<String, Load<?>> requested = new LinkedHashMap<>(); // key -> load waiting to start
+    private final JPanel statusBar = new JPanel(new BorderLayout(8, 0));
+    private final JLabel statusLabel = new JLabel(" ");
+    private final JProgressBar progressBar = new JProgressBar(0, 100);
+    private boolean startScheduled = false;
+
+    public BackgroundLoader() {
+        statusBar.setBorder(BorderFactory.createEmptyBorder(4, 0, 0, 0));
+        progressBar.setVisible(false);
+        progressBar.setPreferredSize(new java.awt.Dimension(160, progressBar.getPreferredSize().height));
+        statusBar.add(statusLabel, BorderLayout.CENTER);
+        statusBar.add(progressBar, BorderLayout.EAST);
+    }
+
+    // Shows the loads in progress and the last error, add it to the bottom of the window
+    public JComponent getStatusBar() {
+        return statusBar;
+    }
+
+    // Same as below, errors are shown in the status bar and logged
+    public <T> void load(String key, String description, LoadTask<T> task, Consumer<T> onLoaded) {
+        load(key, description, task, onLoaded, null);
+    }
+
+    /**
+     * Starts a load in the background. Call on the EDT.
+     *
+     * @param key Loads with the same key replace each other, only the latest result is applied
+     * @param description Shown in the status bar, e.g. "flights"
+     * @param task Runs on a worker thread
+     * @param onLoaded Gets the result on the EDT, unless a newer load for the key was requested since
+     * @param onError Gets the failure on the EDT, null to show it in the status bar
+     * */
+    public <T> void load(String key, String description, LoadTask<T> task,
+                         Consumer<T> onLoaded, Consumer<Exception> onError) {
+        Load<?> superseded = running.remove(key);
+        if (superseded != null) {
+            superseded.cancel(true); // Interrupts the worker if it is waiting, its result is dropped either way
+        }
+        requested.put(key, new Load<>(key, description, task, onLoaded, onError)); // Replaces an unstarted one
+        if (!startScheduled) {
+            // Start on the next EDT turn, so repeated requests within this event become one load
+            startScheduled = true;
+            SwingUtilities.invokeLater(this::startRequested);
+        }
+        updateStatus(null);
+    }
+
+    // Cancels the load for a key, its result is never applied
+    public void cancel(String key) {
+        requested.remove(key);
+        Load<?> load = running.remove(key);
+        if (load != null) {
+            load.cancel(true);
+        }
+        updateStatus(null);
+    }
+
+    // Cancels everything, e.g. when the window closes
+    public void cancelAll() {
+        for (String key : new ArrayList<>(running.keySet())) {
+            cancel(key);
+        }
+        requested.clear();
+        updateStatus(null);
+    }
+
+    // Shows a failed load in the status bar, what loads without their own error handler get
+    public void reportError(String description, Exception e) {
+        System.err.println("Error loading " + description + ": " + e.getMessage());
+        updateStatus("Error loading " + description + ": " + e.getMessage());
+    }
+
+    public boolean isLoading(String key) {
+        return running.containsKey(key) || requested.containsKey(key);
+    }
+
+    private void startRequested() {
+        startScheduled = false;
+        List<Load<?>> toStart = new ArrayList<>(requested.values());
+        requested.clear();
+        for (Load<?> load : toStart) {
+            running.put(load.key, load);
+            load.execute();
+        }
+        updateStatus(null);
+    }
+
+    private void updateStatus(String error) {
+        ArrayList<String> loading = new ArrayList<>();
+        int percent = -1;
+        for (Load<?> load : running.values()) {
+            loading.add(load.description);
+            if (running.size() == 1 && load.getProgress() > 0) {
+                percent = load.getProgress();
+            }
+        }
+        for (Load<?> load : requested.values()) {
+            loading.add(load.description);
+        }
+
+        if (error != null) {
+            statusLabel.setForeground(Color.RED);
+            statusLabel.setText(error);
+        }
+        else if (!loading.isEmpty()) {
+            statusLabel.setForeground(Color.DARK_GRAY);
+            statusLabel.setText("Loading " + String.join(", ", loading) + "...");
+        }
+        else if (statusLabel.getForeground() != Color.RED) {
+            statusLabel.setText(" ");
+        }
+        progressBar.setVisible(!loading.isEmpty());
+        progressBar.setIndeterminate(percent < 0);
+        progressBar.setValue(Math.max(percent, 0));
+    }
+
+    // One background load, a SwingWorker whose done() runs on the EDT
+    private class Load<T> extends SwingWorker<T, Void> implements Progress {
+        private final String key;
+        private final String description;
+        private final LoadTask<T> task;
+        private final Consumer<T> onLoaded;
+        private final Consumer<Exception> onError;
+
+        private Load(String key, String description, LoadTask<T> task, Consumer<T> onLoaded, Consumer<Exception> onError) {
+            this.key = key;
+            this.description = description;
+            this.task = task;
+            this.onLoaded = onLoaded;
+            this.onError = onError;
+            addPropertyChangeListener(e -> {
+                if ("progress".equals(e.getPropertyName()) && running.get(key) == this) {
+                    updateStatus(null);
+                }
+            });
+        }
+
+        @Override
+        protected T doInBackground() throws Exception {
+            return task.load(this);
+        }
+
+        @Override
+        public void update(int done, int total) {
+            if (total > 0) {
+                setProgress(Math.min(100, done * 100 / total));
+            }
+        }
+
+        @Override
+        protected void done() {
+            if (running.get(key) != this) {
+                return; // Superseded or cancelled, a newer load owns the key
+            }
+            running.remove(key);
+            try {
+                T result = get();
+                updateStatus(null);
+                onLoaded.accept(result);
+            }
+            catch (CancellationException | InterruptedException e) {
+                updateStatus(null);
+            }
+            catch (ExecutionException e) {
+                Exception cause = e.getCause() instanceof Exception ex ? ex : e;
+                if (onError != null) {
+                    updateStatus(null);
+                    onError.accept(cause);
+                }
+                else {
+                    reportError(description, cause);
+                }
+            }
+        }
+    }
+}
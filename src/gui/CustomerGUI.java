@@ -1,7 +1,6 @@
 package gui;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -9,11 +8,15 @@ import service.FlightController;
 import service.CustomerController;
 import service.BookingController;
 import service.PromotionManager;
+import service.PaymentProcessor;
+import service.SeatHoldManager.SeatHold;
 import model.*;
 import backend.DatabaseManager;
 
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
 import java.util.regex.Pattern;
 import java.util.regex.Matcher;
 
@@ -35,12 +38,12 @@ public class CustomerGUI extends JFrame {
     private JButton searchFlightsButton;
     private JButton clearSearchButton;
     private JTable flightTable;
-    private DefaultTableModel flightTableModel;
+    private KeyedTableModel flightTableModel;
     private JButton bookFlightButton;
 
     // My Bookings Components
     private JTable bookingsTable;
-    private DefaultTableModel bookingsTableModel;
+    private KeyedTableModel bookingsTableModel;
     private JButton cancelBookingButton;
     private JButton refreshBookingsButton;
 
@@ -53,20 +56,28 @@ public class CustomerGUI extends JFrame {
     private JTextField profilePassField;
     private JButton updateProfileButton;
 
+    // Header Components, filled in once the customer is loaded
+    private JLabel welcomeLabel;
+    private JButton subscriptionButton;
+
     // Promotions Components
     private JButton viewPromotionsButton;
     private boolean isSubscribed = false;
 
+    // Runs the database loads off the EDT
+    private final BackgroundLoader loader = new BackgroundLoader();
+
     public CustomerGUI(String username) {
         this.currentUser = username;
-        initializeControllers();
-        loadCustomerData();
+        boolean connected = initializeControllers();
         initializeGUI();
-        loadInitialData();
-        initializePromotions();
+        if (connected) { // Without a connection every load would only fail again
+            loadCustomerData(); // Fills in the window once the customer is loaded
+        }
     }
 
-    private void initializeControllers() {
+    // Returns false if the database connection failed, the error was already shown
+    private boolean initializeControllers() {
         this.db = DatabaseManager.getInstance();
         this.flightController = new FlightController();
         this.customerController = new CustomerController();
@@ -75,48 +86,72 @@ public class CustomerGUI extends JFrame {
 
         // Connect to database
         try {
-            db.connect("customer_user", "customer_password");
+            if (!db.connect("customer_user", "customer_password")) {
+                JOptionPane.showMessageDialog(this,
+                    "Database connection failed, check the server is running and the credentials are correct.",
+                    "Connection Error",
+                    JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
             System.out.println("Connected to the database as customer: " + currentUser);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
                 "Database connection failed: " + e.getMessage(),
                 "Connection Error",
                 JOptionPane.ERROR_MESSAGE);
+            return false;
         }
+        return true;
     }
 
     private void initializePromotions() {
         if (currentCustomer != null) {
             // Load promotions but don't auto-subscribe
-            promotionManager.loadPromotionsFromDatabase();
+            loader.load("promotions", "promotions", progress -> {
+                promotionManager.loadPromotionsFromDatabase();
+                return null;
+            }, ignored -> { });
         }
     }
 
-    private void loadCustomerData() {
-        try {
-            // Find customer by username
-            ArrayList<Customer> allCustomers = customerController.getAllCustomersAsArray();
-            for (Customer customer : allCustomers) {
-                if (customer.getUsername().equals(currentUser)) {
-                    this.currentCustomer = customer;
-                    break;
-                }
-            }
+    // What the window needs about the logged in customer, loaded together off the EDT
+    private record CustomerData(Customer customer, boolean subscribed) { }
 
-            if (currentCustomer == null) {
+    private void loadCustomerData() {
+        loader.load("customer", "customer data", progress -> {
+            Customer customer = customerController.getCustomerByUsername(currentUser);
+            return new CustomerData(customer, customer != null && promotionManager.isSubscribed(customer));
+        }, data -> {
+            if (data.customer() == null) {
                 JOptionPane.showMessageDialog(this,
                     "Could not load customer data for: " + currentUser,
                     "Error",
                     JOptionPane.ERROR_MESSAGE);
-            } else {
-                System.out.println("Customer data loaded: " + currentCustomer.getFirstName() + " " + currentCustomer.getLastName());
+                return;
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading customer data: " + e.getMessage(),
+            currentCustomer = data.customer();
+            isSubscribed = data.subscribed();
+            System.out.println("Customer data loaded: " + currentCustomer.getFirstName() + " " + currentCustomer.getLastName());
+            welcomeLabel.setText("Welcome, " + currentCustomer.getFirstName() + " " + currentCustomer.getLastName() + "!");
+            subscriptionButton.setText(isSubscribed ? "Unsubscribe from Promotions" : "Subscribe to Promotions");
+            loadProfileData();
+            loadInitialData();
+            initializePromotions();
+
+            if (isSubscribed) {
+                // Subscriptions are stored, pick up live notifications again for this session
+                // and catch up on the promotions that went live since the customer was last notified
+                promotionManager.registerObserver(currentCustomer);
+                Customer customer = currentCustomer;
+                loader.load("missed-promotions", "promotions", progress -> {
+                    promotionManager.catchUp(customer);
+                    return null;
+                }, ignored -> { });
+            }
+        }, ex -> JOptionPane.showMessageDialog(this,
+                "Error loading customer data: " + ex.getMessage(),
                 "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.ERROR_MESSAGE));
     }
 
     private void initializeGUI() {
@@ -133,14 +168,14 @@ public class CustomerGUI extends JFrame {
         JPanel headerPanel = new JPanel(new BorderLayout());
         String welcomeName = currentCustomer != null ?
             currentCustomer.getFirstName() + " " + currentCustomer.getLastName() : currentUser;
-        JLabel welcomeLabel = new JLabel("Welcome, " + welcomeName + "!");
+        welcomeLabel = new JLabel("Welcome, " + welcomeName + "!");
         welcomeLabel.setFont(new Font("Arial", Font.BOLD, 16));
         headerPanel.add(welcomeLabel, BorderLayout.WEST);
 
         JPanel headerButtonPanel = new JPanel(new FlowLayout());
 
-        // Subscription toggle button - starts as "Subscribe to Promotions"
-        JButton subscriptionButton = new JButton("Subscribe to Promotions");
+        // Subscription toggle button - starts from the stored subscription
+        subscriptionButton = new JButton(isSubscribed ? "Unsubscribe from Promotions" : "Subscribe to Promotions");
         subscriptionButton.addActionListener(e -> toggleSubscription(subscriptionButton));
         headerButtonPanel.add(subscriptionButton);
 
@@ -169,6 +204,7 @@ public class CustomerGUI extends JFrame {
         tabbedPane.addTab("My Profile", createProfilePanel());
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
+        mainPanel.add(loader.getStatusBar(), BorderLayout.SOUTH);
 
         add(mainPanel);
     }
@@ -213,12 +249,7 @@ public class CustomerGUI extends JFrame {
         resultsPanel.setBorder(BorderFactory.createTitledBorder("Available Flights"));
 
         String[] columnNames = {"Flight ID", "Airline", "Departure", "Destination", "Date", "Duration", "Price", "Available Seats"};
-        flightTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        flightTableModel = new KeyedTableModel(columnNames);
         flightTable = new JTable(flightTableModel);
         flightTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane scrollPane = new JScrollPane(flightTable);
@@ -252,12 +283,7 @@ public class CustomerGUI extends JFrame {
 
         // Bookings table
         String[] columnNames = {"Booking ID", "Flight ID", "Airline", "Departure", "Destination", "Date", "Seat Number"};
-        bookingsTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        bookingsTableModel = new KeyedTableModel(columnNames);
         bookingsTable = new JTable(bookingsTableModel);
         bookingsTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane scrollPane = new JScrollPane(bookingsTable);
@@ -324,89 +350,95 @@ public class CustomerGUI extends JFrame {
             if (currentCustomer.getDoB() != null) {
                 profileDobField.setText(currentCustomer.getDoB().toSQLDate());
             }
-            try {
-                profilePassField.setText(db.getPasswordForUser(currentCustomer.getId()));
-            }
-            catch (SQLException e) {
-                e.printStackTrace();
-            }
+            int customerId = currentCustomer.getId();
+            loader.load("password", "profile", progress -> db.getPasswordForUser(customerId),
+                profilePassField::setText);
         }
     }
 
     private void refreshBookingsTable() {
-        try {
+        if (currentCustomer == null) {
             bookingsTableModel.setRowCount(0);
-            if (currentCustomer == null) return;
-
-            ArrayList<Booking> allBookings = bookingController.getAllBookings();
-
-            for (Booking booking : allBookings) {
-                if (booking.getCustomer().getId() == currentCustomer.getId()) {
-                    Flight flight = booking.getFlight();
-                    ArrayList<Flight> flights = flightController.getAllFlights();
-                    for(Flight f : flights){
-                        if(flight.getFlightID() == f.getFlightID()){
-                            flight = f;
-                        }
-                    }
-                    Object[] row = {
-                        booking.getBookingId(),
-                        flight.getFlightID(),
-                        flight.getAirplane() != null ? flight.getAirplane().getAirline().getName() : "N/A",
-                        flight.getRoute() != null ? flight.getRoute().getDepartureLocation().getCity() : "N/A",
-                        flight.getRoute() != null ? flight.getRoute().getArrivalLocation().getCity() : "N/A",
-                        flight.getDepartureDate().toString(),
-                        booking.getSeatNumber()
-                    };
-                    bookingsTableModel.addRow(row);
-                }
+            return;
+        }
+        int customerId = currentCustomer.getId();
+        loader.load("bookings", "bookings", progress -> {
+            // Bookings come back with their flight, airplane and route already loaded
+            ArrayList<Booking> bookings = bookingController.getCustomerBookings(customerId);
+            ArrayList<Object[]> rows = new ArrayList<>(bookings.size());
+            for (Booking booking : bookings) {
+                Flight flight = booking.getFlight();
+                rows.add(new Object[]{
+                    booking.getBookingId(),
+                    flight.getFlightID(),
+                    flight.getAirplane() != null ? flight.getAirplane().getAirline().getName() : "N/A",
+                    flight.getRoute() != null ? flight.getRoute().getDepartureLocation().getCity() : "N/A",
+                    flight.getRoute() != null ? flight.getRoute().getArrivalLocation().getCity() : "N/A",
+                    flight.getDepartureDate().toString(),
+                    booking.getSeatNumber()
+                });
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading bookings: " + e.getMessage(),
+            return rows;
+        }, rows -> bookingsTableModel.setRows(rows),
+        ex -> JOptionPane.showMessageDialog(this,
+                "Error loading bookings: " + ex.getMessage(),
                 "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.ERROR_MESSAGE));
     }
 
     private void clearSearchFields() {
         departureField.setText("");
         destinationField.setText("");
         dateField.setText("");
+        loader.cancel("search"); // A search still running would fill the table again
         flightTableModel.setRowCount(0);
     }
 
     private void toggleSubscription(JButton button) {
-        if (currentCustomer != null) {
-            if (isSubscribed) {
-                promotionManager.removeObserver(currentCustomer);
+        if (currentCustomer == null || loader.isLoading("subscription")) {
+            return;
+        }
+        Customer customer = currentCustomer;
+        if (isSubscribed) {
+            loader.load("subscription", "subscription", progress -> {
+                promotionManager.unsubscribe(customer);
+                return null;
+            }, ignored -> {
                 button.setText("Subscribe to Promotions");
                 isSubscribed = false;
-                System.out.println("Customer " + currentCustomer.getUsername() + " unsubscribed from promotions");
+                System.out.println("Customer " + customer.getUsername() + " unsubscribed from promotions");
                 JOptionPane.showMessageDialog(this,
                     "You have unsubscribed from promotion notifications.",
                     "Unsubscribed",
                     JOptionPane.INFORMATION_MESSAGE);
-            } else {
-                promotionManager.registerObserver(currentCustomer);
+            }, ex -> JOptionPane.showMessageDialog(this,
+                    "Error unsubscribing: " + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE));
+        } else {
+            loader.load("subscription", "subscription", progress -> {
+                promotionManager.subscribe(customer);
+                return null;
+            }, ignored -> {
                 button.setText("Unsubscribe from Promotions");
                 isSubscribed = true;
-                System.out.println("Customer " + currentCustomer.getUsername() + " subscribed to promotions");
+                System.out.println("Customer " + customer.getUsername() + " subscribed to promotions");
 
                 // Notify about current promotions when subscribing
                 java.util.List<Promotion> activePromotions = promotionManager.getActivePromotions();
                 if (!activePromotions.isEmpty()) {
                     System.out.println("Notifying newly subscribed customer about " + activePromotions.size() + " current promotions");
-                    for (Promotion promotion : activePromotions) {
-                        currentCustomer.update(promotion);
-                    }
+                    promotionManager.notifyObserver(customer, activePromotions);
                 }
 
                 JOptionPane.showMessageDialog(this,
                     "You have subscribed to promotion notifications.",
                     "Subscribed",
                     JOptionPane.INFORMATION_MESSAGE);
-            }
+            }, ex -> JOptionPane.showMessageDialog(this,
+                    "Error subscribing: " + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE));
         }
     }
 
@@ -426,51 +458,25 @@ public class CustomerGUI extends JFrame {
                 return;
             }
 
-            try {
-                flightTableModel.setRowCount(0);
-                ArrayList<Flight> allFlights = flightController.getAllFlights();
-                ArrayList<Flight> matchingFlights = new ArrayList<>();
-
-                for (Flight flight : allFlights) {
-                    boolean matches = true;
-
-                    // Check departure city
-                    if (!departure.isEmpty() && flight.getRoute() != null) {
-                        String departureCity = flight.getRoute().getDepartureLocation().getCity();
-                        if (!departureCity.toLowerCase().contains(departure.toLowerCase())) {
-                            matches = false;
-                        }
-                    }
-
-                    // Check destination city
-                    if (matches && !destination.isEmpty() && flight.getRoute() != null) {
-                        String destinationCity = flight.getRoute().getArrivalLocation().getCity();
-                        if (!destinationCity.toLowerCase().contains(destination.toLowerCase())) {
-                            matches = false;
-                        }
-                    }
-
-                    // Check date
-                    if (matches && !date.isEmpty()) {
-                        String flightDate = flight.getDepartureDate().toSQLDate();
-                        if (!flightDate.equals(date)) {
-                            matches = false;
-                        }
-                    }
-
-                    // Check available seats
-                    if (matches && flight.getAvailableSeats() <= 0) {
-                        matches = false;
-                    }
+            if (!date.isEmpty() && !date.matches("\\d{4}-\\d{2}-\\d{2}")) {
+                JOptionPane.showMessageDialog(CustomerGUI.this,
+                    "Please enter the date as YYYY-MM-DD.",
+                    "Invalid Date",
+                    JOptionPane.WARNING_MESSAGE);
+                return;
+            }
 
-                    if (matches) {
-                        matchingFlights.add(flight);
-                    }
-                }
+            // A newer search replaces one still running
+            loader.load("search", "flights", progress -> {
+                bookingController.reloadSeatInventory(); // Seats may have been booked since the last search
+                CustomDate searchDate = date.isEmpty() ? null : CustomDate.StringToDate(date);
 
-                // Display matching flights
+                // Only flights with at least one free seat can be booked
+                ArrayList<Flight> matchingFlights = flightController.searchFlights(
+                    departure, destination, searchDate, searchDate, 1, null);
+                ArrayList<Object[]> rows = new ArrayList<>(matchingFlights.size());
                 for (Flight flight : matchingFlights) {
-                    Object[] row = {
+                    rows.add(new Object[]{
                         flight.getFlightID(),
                         flight.getAirplane() != null ? flight.getAirplane().getAirline().getName() : "N/A",
                         flight.getRoute() != null ? flight.getRoute().getDepartureLocation().getCity() : "N/A",
@@ -479,31 +485,33 @@ public class CustomerGUI extends JFrame {
                         flight.getFlightTime(),
                         String.format("$%.2f", flight.getPrice()),
                         flight.getAvailableSeats()
-                    };
-                    flightTableModel.addRow(row);
+                    });
                 }
-
-                if (matchingFlights.isEmpty()) {
+                return rows;
+            }, rows -> {
+                // Display matching flights
+                flightTableModel.setRows(rows);
+                if (rows.isEmpty()) {
                     JOptionPane.showMessageDialog(CustomerGUI.this,
                         "No flights found matching your search criteria.",
                         "Search Results",
                         JOptionPane.INFORMATION_MESSAGE);
                 } else {
                     JOptionPane.showMessageDialog(CustomerGUI.this,
-                        "Found " + matchingFlights.size() + " flight(s) matching your criteria.",
+                        "Found " + rows.size() + " flight(s) matching your criteria.",
                         "Search Results",
                         JOptionPane.INFORMATION_MESSAGE);
                 }
-
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(CustomerGUI.this,
+            }, ex -> JOptionPane.showMessageDialog(CustomerGUI.this,
                     "Error searching flights: " + ex.getMessage(),
                     "Search Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+                    JOptionPane.ERROR_MESSAGE));
         }
     }
 
+    // The flight being booked and the hold on its seat, a null hold if the seat was taken
+    private record HeldSeat(Flight flight, SeatHold hold) { }
+
     private class BookFlightListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
@@ -524,6 +532,10 @@ public class CustomerGUI extends JFrame {
                 return;
             }
 
+            if (loader.isLoading("booking")) {
+                return; // Still working on the previous booking
+            }
+
             try {
                 int flightId = (int) flightTableModel.getValueAt(selectedRow, 0);
                 String airline = (String) flightTableModel.getValueAt(selectedRow, 1);
@@ -562,147 +574,37 @@ public class CustomerGUI extends JFrame {
                             return;
                         }
 
-                        // Get the flight object
-                        Flight selectedFlight = flightController.getFlight(flightId);
-                        if (selectedFlight == null) {
-                            JOptionPane.showMessageDialog(CustomerGUI.this,
-                                "Error: Could not find selected flight.",
-                                "Error",
-                                JOptionPane.ERROR_MESSAGE);
-                            return;
-                        }
-
-                        // Check if seat is already taken
-                        boolean seatTaken = false;
-                        ArrayList<Booking> allBookings = bookingController.getAllBookings();
-                        for (Booking booking : allBookings) {
-                            if (booking.getFlight().getFlightID() == flightId &&
-                                booking.getSeatNumber() == seatNumber) {
-                                seatTaken = true;
-                                break;
-                            }
-                        }
-
-                        if (seatTaken) {
-                            JOptionPane.showMessageDialog(CustomerGUI.this,
-                                "Seat " + seatNumber + " is already taken on this flight.\n" +
-                                "Please choose a different seat.",
-                                "Seat Unavailable",
-                                JOptionPane.WARNING_MESSAGE);
-                            return;
-                        }
-
-                        // Apply promo code
-                        double finalPrice = originalPrice;
-                        Promotion appliedPromotion = null;
-
-                        String promoCode = JOptionPane.showInputDialog(CustomerGUI.this,
-                            "Enter promo code (or leave blank for no discount):",
-                            "Promo Code",
-                            JOptionPane.QUESTION_MESSAGE);
-
-                        if (promoCode != null && !promoCode.trim().isEmpty()) {
-                            appliedPromotion = promotionManager.getPromotionByCode(promoCode.trim());
-                            if (appliedPromotion != null) {
-                                double discount = appliedPromotion.getDiscountRate();
-                                finalPrice = originalPrice * (1 - discount);
-                                System.out.println("Promo code " + promoCode + " applied. Discount: " + (discount * 100) + "%. Original: $" + originalPrice + ", Final: $" + finalPrice);
+                        // Get the flight object and hold the seat while the customer pays,
+                        // nobody else can take it until the hold ends
+                        Customer customer = currentCustomer;
+                        loader.load("booking", "seat hold", progress -> {
+                            Flight flight = flightController.getFlight(flightId);
+                            return new HeldSeat(flight, flight == null ? null : bookingController.holdSeat(customer, flight, seatNumber));
+                        }, held -> {
+                            if (held.flight() == null) {
                                 JOptionPane.showMessageDialog(CustomerGUI.this,
-                                    "Promo code applied! Discount: " + (discount * 100) + "%\n" +
-                                    "New price: $" + String.format("%.2f", finalPrice),
-                                    "Discount Applied",
-                                    JOptionPane.INFORMATION_MESSAGE);
-                            } else {
-                                System.out.println("Invalid promo code attempted: " + promoCode);
-                                JOptionPane.showMessageDialog(CustomerGUI.this,
-                                    "Invalid promo code. Continuing with original price.",
-                                    "Invalid Promo Code",
-                                    JOptionPane.WARNING_MESSAGE);
-                            }
-                        }
-
-                        Object[] options = {"Credit Card", "PayPal"};
-                        int choice = JOptionPane.showOptionDialog(CustomerGUI.this,
-                            "Final Price: $" + String.format("%.2f", finalPrice) +
-                            (appliedPromotion != null ? " (with " + (appliedPromotion.getDiscountRate() * 100) + "% discount)" : "") +
-                            "\nPlease choose a payment method:",
-                            "Payment Method",
-                            JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE,
-                            null, options, options[0]);
-
-                        if (choice == -1) {
-                            // User cancelled the payment choice
-                            return;
-                        }
-                        else if(choice == 0){
-                            CreditCardPaymentDialog cardDialog = new CreditCardPaymentDialog(CustomerGUI.this);
-                            cardDialog.setVisible(true);
-                            Card card = new Card(cardDialog.getCardNumber(), cardDialog.getHolderName(), cardDialog.getExpiryDate(), cardDialog.getCvv());
-                            currentCustomer.setPaymentStrategy(new CreditCardPayment(card));
-                            if (!cardDialog.isConfirmed()) {
+                                    "Error: Could not find selected flight.",
+                                    "Error",
+                                    JOptionPane.ERROR_MESSAGE);
                                 return;
                             }
-
-                            String payed = currentCustomer.processPayment(finalPrice);
-                            if(payed.equals("Failed")){
-                                JOptionPane.showMessageDialog(CustomerGUI.this,
-                                "Payment failed. Please try again.",
-                                "Payment Failure",
-                                JOptionPane.WARNING_MESSAGE);
-                                return;
-                            }
-                            else{
+                            if (held.hold() == null) {
                                 JOptionPane.showMessageDialog(CustomerGUI.this,
-                                    "Paid via Credit Card: $" + String.format("%.2f", finalPrice),
-                                    "Payment Successful",
-                                    JOptionPane.INFORMATION_MESSAGE);
-                            }
-                        }
-
-                        else if(choice == 1){
-                            PayPalPaymentDialog ppDialog = new PayPalPaymentDialog(CustomerGUI.this);
-                            ppDialog.setVisible(true);
-                            Card card = new Card(ppDialog.getCardNumber(), ppDialog.getHolderName(), ppDialog.getExpiryDate(), ppDialog.getCvv());
-                            currentCustomer.setPaymentStrategy(new PayPalPayment(card));
-                            if (!ppDialog.isConfirmed()) {
+                                    "Seat " + seatNumber + " is already taken on this flight.\n" +
+                                    "Please choose a different seat.",
+                                    "Seat Unavailable",
+                                    JOptionPane.WARNING_MESSAGE);
                                 return;
                             }
-
-                            String payed = currentCustomer.processPayment(finalPrice);
-                            if(payed.equals("Failed")){
-                                JOptionPane.showMessageDialog(CustomerGUI.this,
-                                "Payment failed. Please try again.",
-                                "Payment Failure",
-                                JOptionPane.WARNING_MESSAGE);
-                                return;
+                            SeatPurchase purchase = new SeatPurchase(customer, held.flight(), held.hold(),
+                                airline + " - " + departure + " to " + destination, originalPrice, e);
+                            try {
+                                purchase.choosePayment();
                             }
-                            else{
-                                JOptionPane.showMessageDialog(CustomerGUI.this,
-                                    "Paid via PayPal: $" + String.format("%.2f", finalPrice),
-                                    "Payment Successful",
-                                    JOptionPane.INFORMATION_MESSAGE);
+                            catch (RuntimeException ex) {
+                                purchase.failed(ex);
                             }
-                        }
-                        // Create the booking
-                        Booking newBooking = bookingController.createBooking(currentCustomer, selectedFlight, seatNumber);
-
-                        System.out.println("Booking created: ID " + newBooking.getBookingId() + " for customer " + currentCustomer.getUsername());
-
-                        JOptionPane.showMessageDialog(CustomerGUI.this,
-                            "Booking confirmed!\n\n" +
-                            "Booking ID: " + newBooking.getBookingId() + "\n" +
-                            "Flight: " + airline + " - " + departure + " to " + destination + "\n" +
-                            "Seat: " + seatNumber + "\n" +
-                            "Date: " + selectedFlight.getDepartureDate().toString() + "\n" +
-                            (appliedPromotion != null ? "Discount Applied: " + (appliedPromotion.getDiscountRate() * 100) + "% (" + appliedPromotion.getPromoCode() + ")\n" : "") +
-                            "Final Price: $" + String.format("%.2f", finalPrice),
-                            "Booking Successful",
-                            JOptionPane.INFORMATION_MESSAGE);
-
-                        // Refresh tables
-                        refreshBookingsTable();
-                        // Re-run search to update available seats
-                        new SearchFlightsListener().actionPerformed(e);
+                        }, this::bookingFailed);
 
                     } catch (NumberFormatException ex) {
                         JOptionPane.showMessageDialog(CustomerGUI.this,
@@ -713,11 +615,234 @@ public class CustomerGUI extends JFrame {
                 }
 
             } catch (Exception ex) {
+                bookingFailed(ex);
+            }
+        }
+
+        private void bookingFailed(Exception ex) {
+            JOptionPane.showMessageDialog(CustomerGUI.this,
+                "Error booking flight: " + ex.getMessage(),
+                "Booking Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    // Pays for a held seat and books it, the database steps run on the loader and the dialogs between them on the EDT
+    // Every way out that does not end in a booking gives the seat back
+    private class SeatPurchase {
+        private final Customer customer;
+        private final Flight flight;
+        private final SeatHold seatHold;
+        private final String flightInfo; // Airline, origin and destination as shown to the customer
+        private final double originalPrice;
+        private final ActionEvent event; // The Book click, used to re-run the search afterwards
+        private double finalPrice;
+        private Promotion appliedPromotion;
+        private String paidVia;
+
+        private SeatPurchase(Customer customer, Flight flight, SeatHold seatHold, String flightInfo,
+                             double originalPrice, ActionEvent event) {
+            this.customer = customer;
+            this.flight = flight;
+            this.seatHold = seatHold;
+            this.flightInfo = flightInfo;
+            this.originalPrice = originalPrice;
+            this.event = event;
+            this.finalPrice = originalPrice;
+        }
+
+        // Asks for a promo code, the payment method and its details, then extends the hold before charging
+        private void choosePayment() {
+            // Apply promo code
+            String promoCode = JOptionPane.showInputDialog(CustomerGUI.this,
+                "Enter promo code (or leave blank for no discount):",
+                "Promo Code",
+                JOptionPane.QUESTION_MESSAGE);
+
+            if (promoCode != null && !promoCode.trim().isEmpty()) {
+                appliedPromotion = promotionManager.getPromotionByCode(promoCode.trim());
+                if (appliedPromotion != null) {
+                    double discount = appliedPromotion.getDiscountRate();
+                    finalPrice = originalPrice * (1 - discount);
+                    System.out.println("Promo code " + promoCode + " applied. Discount: " + (discount * 100) + "%. Original: $" + originalPrice + ", Final: $" + finalPrice);
+                    JOptionPane.showMessageDialog(CustomerGUI.this,
+                        "Promo code applied! Discount: " + (discount * 100) + "%\n" +
+                        "New price: $" + String.format("%.2f", finalPrice),
+                        "Discount Applied",
+                        JOptionPane.INFORMATION_MESSAGE);
+                } else {
+                    System.out.println("Invalid promo code attempted: " + promoCode);
+                    JOptionPane.showMessageDialog(CustomerGUI.this,
+                        "Invalid promo code. Continuing with original price.",
+                        "Invalid Promo Code",
+                        JOptionPane.WARNING_MESSAGE);
+                }
+            }
+
+            Object[] options = {"Credit Card", "PayPal"}; // Same names as PaymentStrategy.getMethodName
+            int choice;
+            while (true) {
+                choice = JOptionPane.showOptionDialog(CustomerGUI.this,
+                    "Final Price: $" + String.format("%.2f", finalPrice) +
+                    (appliedPromotion != null ? " (with " + (appliedPromotion.getDiscountRate() * 100) + "% discount)" : "") +
+                    "\nPlease choose a payment method:",
+                    "Payment Method",
+                    JOptionPane.DEFAULT_OPTION, JOptionPane.INFORMATION_MESSAGE,
+                    null, options, options[0]);
+                if (choice == -1 || PaymentProcessor.getInstance().isAvailable((String) options[choice])) {
+                    break;
+                }
+                // Its circuit breaker is open, don't make the customer wait on it
+                JOptionPane.showMessageDialog(CustomerGUI.this,
+                    options[choice] + " is not responding right now.\n" +
+                    "Please choose another payment method.",
+                    "Payment Method Unavailable",
+                    JOptionPane.WARNING_MESSAGE);
+            }
+
+            if (choice == -1) {
+                // User cancelled the payment choice
+                release();
+                return;
+            }
+            else if(choice == 0){
+                CreditCardPaymentDialog cardDialog = new CreditCardPaymentDialog(CustomerGUI.this);
+                cardDialog.setVisible(true);
+                Card card = new Card(cardDialog.getCardNumber(), cardDialog.getHolderName(), cardDialog.getExpiryDate(), cardDialog.getCvv());
+                customer.setPaymentStrategy(new CreditCardPayment(card));
+                if (!cardDialog.isConfirmed()) {
+                    release();
+                    return;
+                }
+            }
+            else if(choice == 1){
+                PayPalPaymentDialog ppDialog = new PayPalPaymentDialog(CustomerGUI.this);
+                ppDialog.setVisible(true);
+                Card card = new Card(ppDialog.getCardNumber(), ppDialog.getHolderName(), ppDialog.getExpiryDate(), ppDialog.getCvv());
+                customer.setPaymentStrategy(new PayPalPayment(card));
+                if (!ppDialog.isConfirmed()) {
+                    release();
+                    return;
+                }
+            }
+            paidVia = (String) options[choice];
+
+            // The hold must not run out mid-payment, nothing is charged if it already has
+            loader.load("booking", "seat hold", progress -> bookingController.extendHold(seatHold), extended -> {
+                if (!extended) {
+                    JOptionPane.showMessageDialog(CustomerGUI.this,
+                        "Your hold on seat " + seatHold.getSeatNumber() + " expired, you have not been charged.\n" +
+                        "Please book again.",
+                        "Hold Expired",
+                        JOptionPane.WARNING_MESSAGE);
+                    release();
+                    return;
+                }
+                pay();
+            }, this::failed);
+        }
+
+        private void pay() {
+            String payed;
+            try {
+                payed = awaitPayment(finalPrice);
+            }
+            catch (IllegalStateException ex) {
+                failed(ex);
+                return;
+            }
+            if (payed == null) {
+                release(); // The customer cancelled or the result is unknown
+                return;
+            }
+            if(payed.equals(PaymentProcessor.FAILED)){
                 JOptionPane.showMessageDialog(CustomerGUI.this,
-                    "Error booking flight: " + ex.getMessage(),
-                    "Booking Error",
+                "Payment failed. Please try again.",
+                "Payment Failure",
+                JOptionPane.WARNING_MESSAGE);
+                release();
+                return;
+            }
+            book();
+        }
+
+        // Books straight after the charge, before any dialog the customer could leave open past the hold's TTL
+        private void book() {
+            loader.load("booking", "booking", progress -> bookingController.createBooking(customer, flight, seatHold), newBooking -> {
+                System.out.println("Booking created: ID " + newBooking.getBookingId() + " for customer " + customer.getUsername());
+
+                JOptionPane.showMessageDialog(CustomerGUI.this,
+                    "Paid via " + paidVia + ": $" + String.format("%.2f", finalPrice) + "\n" +
+                    "Booking confirmed!\n\n" +
+                    "Booking ID: " + newBooking.getBookingId() + "\n" +
+                    "Flight: " + flightInfo + "\n" +
+                    "Seat: " + seatHold.getSeatNumber() + "\n" +
+                    "Date: " + flight.getDepartureDate().toString() + "\n" +
+                    (appliedPromotion != null ? "Discount Applied: " + (appliedPromotion.getDiscountRate() * 100) + "% (" + appliedPromotion.getPromoCode() + ")\n" : "") +
+                    "Final Price: $" + String.format("%.2f", finalPrice),
+                    "Booking Successful",
+                    JOptionPane.INFORMATION_MESSAGE);
+
+                // Refresh tables
+                refreshBookingsTable();
+                // Re-run search to update available seats
+                new SearchFlightsListener().actionPerformed(event);
+            }, ex -> {
+                release();
+                System.err.println("Customer " + customer.getUsername() + " paid for seat " + seatHold.getSeatNumber()
+                    + " on flight " + flight.getFlightID() + " but the booking failed: " + ex.getMessage());
+                JOptionPane.showMessageDialog(CustomerGUI.this,
+                    "You were charged $" + String.format("%.2f", finalPrice) + " via " + paidVia +
+                    ", but the booking could not be completed:\n" + ex.getMessage() + "\n\n" +
+                    "Please contact support quoting flight " + flight.getFlightID() + ", seat " + seatHold.getSeatNumber() +
+                    " so the payment can be refunded.",
+                    "Charged But Not Booked",
                     JOptionPane.ERROR_MESSAGE);
+            });
+        }
+
+        private void failed(Exception ex) {
+            release();
+            JOptionPane.showMessageDialog(CustomerGUI.this,
+                "Error booking flight: " + ex.getMessage(),
+                "Booking Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+
+        // Gives the seat back, a no-op once booked
+        private void release() {
+            bookingController.releaseHold(seatHold);
+        }
+    }
+
+    // Runs the customer's payment on PaymentProcessor and waits in a modal dialog, so the window keeps repainting
+    // Returns the payment result, or null if the customer cancelled it or the result is unknown
+    private String awaitPayment(double amount) {
+        PaymentProcessor.Payment payment = PaymentProcessor.getInstance()
+            .process(currentCustomer.getPaymentStrategy(), amount);
+        PaymentProgressDialog progressDialog = new PaymentProgressDialog(this, payment);
+        payment.whenComplete((result, error) -> SwingUtilities.invokeLater(progressDialog::dispose));
+        if (!payment.isDone()) {
+            progressDialog.setVisible(true); // Returns once the payment completes or is cancelled
+        }
+
+        try {
+            return payment.join();
+        }
+        catch (CancellationException ex) {
+            return null;
+        }
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof PaymentProcessor.PaymentUnknownException) {
+                // Not tried again, a second charge could go through too
+                JOptionPane.showMessageDialog(this,
+                    ex.getCause().getMessage() + "\n" +
+                    "Please check your statement before booking again.",
+                    "Payment Not Confirmed",
+                    JOptionPane.WARNING_MESSAGE);
+                return null;
             }
+            throw new IllegalStateException("Payment did not go through: " + ex.getCause().getMessage(), ex.getCause());
         }
     }
 
@@ -748,8 +873,11 @@ public class CustomerGUI extends JFrame {
                 JOptionPane.WARNING_MESSAGE);
 
             if (confirm == JOptionPane.YES_OPTION) {
-                try {
+                // Keyed by booking, so cancelling another one meanwhile does not drop this one
+                loader.load("cancel-booking-" + bookingId, "cancellation", progress -> {
                     bookingController.cancelBooking(bookingId);
+                    return null;
+                }, ignored -> {
                     System.out.println("Booking " + bookingId + " cancelled for customer " + currentCustomer.getUsername());
 
                     JOptionPane.showMessageDialog(CustomerGUI.this,
@@ -760,13 +888,10 @@ public class CustomerGUI extends JFrame {
                     refreshBookingsTable();
                     // Refresh flight search to update available seats
                     new SearchFlightsListener().actionPerformed(e);
-
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(CustomerGUI.this,
+                }, ex -> JOptionPane.showMessageDialog(CustomerGUI.this,
                         "Error cancelling booking: " + ex.getMessage(),
                         "Cancellation Error",
-                        JOptionPane.ERROR_MESSAGE);
-                }
+                        JOptionPane.ERROR_MESSAGE));
             }
         }
     }
@@ -805,6 +930,10 @@ public class CustomerGUI extends JFrame {
                 return;
             }
 
+            if (loader.isLoading("profile-update")) {
+                return; // The previous update is still being saved
+            }
+
             try {
                 // Update customer object
                 currentCustomer.setFirstName(firstName);
@@ -814,9 +943,16 @@ public class CustomerGUI extends JFrame {
                 if (!dob.isEmpty()) {
                     currentCustomer.setDoB(CustomDate.StringToDate(dob));
                 }
+            } catch (Exception ex) {
+                updateFailed(ex);
+                return;
+            }
+
+            Customer customer = currentCustomer;
+            loader.load("profile-update", "profile", progress -> {
                 if(!pass.isEmpty()) {
                     try {
-                        db.updatePasswordDirectly(currentCustomer.getId(), pass);
+                        db.updatePasswordDirectly(customer.getId(), pass);
                     }
                     catch (SQLException ex) {
                         ex.printStackTrace();
@@ -824,8 +960,10 @@ public class CustomerGUI extends JFrame {
                 }
 
                 // Update in database
-                customerController.updateCustomer(currentCustomer);
-                System.out.println("Customer profile updated: " + currentCustomer.getUsername());
+                customerController.updateCustomer(customer);
+                return null;
+            }, ignored -> {
+                System.out.println("Customer profile updated: " + customer.getUsername());
 
                 JOptionPane.showMessageDialog(CustomerGUI.this,
                     "Profile updated successfully!",
@@ -833,15 +971,16 @@ public class CustomerGUI extends JFrame {
                     JOptionPane.INFORMATION_MESSAGE);
 
                 // Update welcome message
-                String welcomeName = currentCustomer.getFirstName() + " " + currentCustomer.getLastName();
+                String welcomeName = customer.getFirstName() + " " + customer.getLastName();
                 setTitle("Flight Reservation System - " + welcomeName + "'s Dashboard");
+            }, this::updateFailed);
+        }
 
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(CustomerGUI.this,
-                    "Error updating profile: " + ex.getMessage(),
-                    "Update Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+        private void updateFailed(Exception ex) {
+            JOptionPane.showMessageDialog(CustomerGUI.this,
+                "Error updating profile: " + ex.getMessage(),
+                "Update Error",
+                JOptionPane.ERROR_MESSAGE);
         }
     }
 
@@ -894,9 +1033,11 @@ public class CustomerGUI extends JFrame {
             if (result == JOptionPane.YES_OPTION) {
                 if (currentCustomer != null && isSubscribed) {
                     System.out.println("Customer " + currentCustomer.getUsername() + " logging out (was subscribed)");
+                    promotionManager.removeObserver(currentCustomer); // Stays subscribed, just no longer live here
                 } else if (currentCustomer != null) {
                     System.out.println("Customer " + currentCustomer.getUsername() + " logging out (was not subscribed)");
                 }
+                loader.cancelAll();
                 db.disconnect();
                 dispose();
                 new LoginGUI().setVisible(true);
@@ -904,6 +1045,38 @@ public class CustomerGUI extends JFrame {
         }
     }
 
+    // Shown while a payment runs, Cancel interrupts the payment
+    public class PaymentProgressDialog extends JDialog {
+        public PaymentProgressDialog(Frame parent, PaymentProcessor.Payment payment) {
+            super(parent, "Processing Payment", true);
+            setDefaultCloseOperation(JDialog.DO_NOTHING_ON_CLOSE); // Only Cancel or the payment closes it
+
+            JPanel panel = new JPanel(new BorderLayout(10, 10));
+            panel.setBorder(BorderFactory.createEmptyBorder(15, 15, 15, 15));
+            JLabel statusLabel = new JLabel("Contacting " + currentCustomer.getPaymentStrategy().getMethodName() + ", please wait...");
+            panel.add(statusLabel, BorderLayout.NORTH);
+            JProgressBar progressBar = new JProgressBar();
+            progressBar.setIndeterminate(true);
+            panel.add(progressBar, BorderLayout.CENTER);
+
+            JPanel buttonPanel = new JPanel();
+            JButton cancelButton = new JButton("Cancel");
+            cancelButton.addActionListener(e -> {
+                // Refused once the charge is sent, the dialog then waits for the gateway's answer
+                if (!payment.cancel(true)) {
+                    cancelButton.setEnabled(false);
+                    statusLabel.setText("Payment already sent, waiting for the result...");
+                }
+            });
+            buttonPanel.add(cancelButton);
+            panel.add(buttonPanel, BorderLayout.SOUTH);
+
+            add(panel);
+            setSize(350, 150);
+            setLocationRelativeTo(parent);
+        }
+    }
+
     public class CreditCardPaymentDialog extends JDialog {
         private JTextField cardNumberField;
         private JTextField holderNameField;
@@ -1,7 +1,6 @@
 package gui;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
@@ -11,6 +10,11 @@ import service.BookingController;
 import model.*;
 import backend.DatabaseManager;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import service.SearchIndex;
 
 public class FlightAgentGUI extends JFrame {
     private String currentUser;
@@ -28,47 +32,88 @@ public class FlightAgentGUI extends JFrame {
     private JButton searchFlightButton;
     private JButton refreshFlightsButton;
     private JTable flightTable;
-    private DefaultTableModel flightTableModel;
+    private KeyedTableModel flightTableModel;
 
     // Customer Management Components
     private JTextField customerSearchField;
     private JButton searchCustomerButton;
     private JButton refreshCustomersButton;
     private JTable customerTable;
-    private DefaultTableModel customerTableModel;
+    private KeyedTableModel customerTableModel;
     private JButton addCustomerButton;
     private JButton editCustomerButton;
     private JButton removeCustomerButton;
 
     // Booking Management Components
     private JTable bookingTable;
-    private DefaultTableModel bookingTableModel;
+    private PagedTableModel<Booking> bookingTableModel;
     private JButton createBookingButton;
     private JButton editBookingButton;
     private JButton cancelBookingButton;
     private JButton refreshBookingsButton;
 
+    // Runs the database loads off the EDT
+    private final BackgroundLoader loader = new BackgroundLoader();
+
+    // Seat counts and bookings change under other agents and customers, so those tables refresh themselves
+    private static final int AUTO_REFRESH_MILLIS = 15_000;
+    private final Timer autoRefreshTimer = new Timer(AUTO_REFRESH_MILLIS, e -> autoRefresh());
+
+    // Searches run against an index of the loaded rows as the agent types, once typing pauses for the delay
+    private static final int SEARCH_DELAY_MILLIS = 150;
+    private static final int[] ALL_FIELDS = {};
+    private SearchIndex<SearchRow> flightIndex; // Null until the first load finishes
+    private SearchIndex<SearchRow> customerIndex;
+    private Timer flightSearchTimer;
+    private Timer customerSearchTimer;
+
+    // A table row with the text it can be found by, field positions are what the searches refer to
+    private record SearchRow(Object[] row, String[] fields) { }
+    private static final int FLIGHT_ORIGIN = 0;
+    private static final int FLIGHT_DESTINATION = 1;
+    private static final int FLIGHT_DEPARTURE = 2;
+
+    // The booking table only holds the pages around what is on screen
+    private static final int BOOKING_PAGE_SIZE = 100;
+    private static final int BOOKING_CACHED_PAGES = 20;
+
+    // What the booking dialogs offer to choose from, loaded before they open
+    private record BookingChoices(ArrayList<Customer> customers, ArrayList<Flight> flights) { }
+    private record BookingToEdit(Booking booking, ArrayList<Flight> flights) { }
+
     public FlightAgentGUI(String username) {
         this.currentUser = username;
-        initializeControllers();
+        boolean connected = initializeControllers();
         initializeGUI();
-        loadInitialData();
+        if (connected) { // Without a connection every load and refresh would only fail again
+            loadInitialData();
+            autoRefreshTimer.start();
+        }
     }
 
-    private void initializeControllers() {
+    // Returns false if the database connection failed, the error was already shown
+    private boolean initializeControllers() {
         this.db = DatabaseManager.getInstance();
         this.flightController = new FlightController();
         this.customerController = new CustomerController();
         this.bookingController = new BookingController();
 
         try {
-            db.connect("agent_user", "agent_password");
+            if (!db.connect("agent_user", "agent_password")) {
+                JOptionPane.showMessageDialog(this,
+                    "Database connection failed, check the server is running and the credentials are correct.",
+                    "Connection Error",
+                    JOptionPane.ERROR_MESSAGE);
+                return false;
+            }
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
                 "Database connection failed: " + e.getMessage(),
                 "Connection Error",
                 JOptionPane.ERROR_MESSAGE);
+            return false;
         }
+        return true;
     }
 
     private void initializeGUI() {
@@ -106,6 +151,7 @@ public class FlightAgentGUI extends JFrame {
         tabbedPane.addTab("Booking Management", createBookingManagementPanel());
 
         mainPanel.add(tabbedPane, BorderLayout.CENTER);
+        mainPanel.add(loader.getStatusBar(), BorderLayout.SOUTH);
 
         add(mainPanel);
     }
@@ -127,6 +173,9 @@ public class FlightAgentGUI extends JFrame {
         searchFlightButton.addActionListener(new SearchFlightListener());
         searchPanel.add(searchFlightButton);
 
+        flightSearchTimer = searchAsYouType(flightSearchField, () -> applyFlightSearch(false));
+        flightSearchType.addActionListener(e -> applyFlightSearch(false));
+
         refreshFlightsButton = new JButton("Refresh");
         refreshFlightsButton.addActionListener(e -> refreshFlightsTable());
         searchPanel.add(refreshFlightsButton);
@@ -135,12 +184,7 @@ public class FlightAgentGUI extends JFrame {
 
         // Flight table
         String[] columnNames = {"Flight ID", "Airline", "Origin", "Destination", "Departure", "Arrival", "Available Seats", "Price"};
-        flightTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false; // Make table non-editable
-            }
-        };
+        flightTableModel = new KeyedTableModel(columnNames);
         flightTable = new JTable(flightTableModel);
         flightTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane scrollPane = new JScrollPane(flightTable);
@@ -163,6 +207,7 @@ public class FlightAgentGUI extends JFrame {
         searchCustomerButton = new JButton("Search");
         searchCustomerButton.addActionListener(new SearchCustomerListener());
         searchPanel.add(searchCustomerButton);
+        customerSearchTimer = searchAsYouType(customerSearchField, this::applyCustomerSearch);
 
         refreshCustomersButton = new JButton("Refresh");
         refreshCustomersButton.addActionListener(e -> refreshCustomersTable());
@@ -188,12 +233,7 @@ public class FlightAgentGUI extends JFrame {
 
         // Customer table
         String[] columnNames = {"Customer ID", "Username", "First Name", "Last Name", "Email", "Date of Birth"};
-        customerTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        customerTableModel = new KeyedTableModel(columnNames);
         customerTable = new JTable(customerTableModel);
         customerTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane scrollPane = new JScrollPane(customerTable);
@@ -227,13 +267,20 @@ public class FlightAgentGUI extends JFrame {
 
         // Booking table
         String[] columnNames = {"Booking ID", "Customer", "Customer ID", "Flight ID", "Departure", "Arrival", "Seat Number"};
-        bookingTableModel = new DefaultTableModel(columnNames, 0) {
+        String[] sortKeys = {"booking_id", null, "customer_id", "flight_id", null, null, null}; // Only the indexed columns
+        bookingTableModel = new PagedTableModel<>("bookings", columnNames, sortKeys, new PagedTableModel.PageSource<>() {
             @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
+            public int count() throws Exception {
+                return bookingController.countBookings();
             }
-        };
+
+            @Override
+            public java.util.List<Booking> fetch(String sortBy, boolean descending, Booking after, int offset, int limit) throws Exception {
+                return bookingController.getBookingsPage(sortBy, descending, after, offset, limit);
+            }
+        }, FlightAgentGUI::bookingRow, loader, BOOKING_PAGE_SIZE, BOOKING_CACHED_PAGES);
         bookingTable = new JTable(bookingTableModel);
+        bookingTableModel.installSorting(bookingTable);
         bookingTable.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
         JScrollPane scrollPane = new JScrollPane(bookingTable);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -247,38 +294,109 @@ public class FlightAgentGUI extends JFrame {
         refreshBookingsTable();
     }
 
+    // Reloads the flights in the background and indexes them, then shows those matching the current search
     private void refreshFlightsTable() {
-        try {
-            flightTableModel.setRowCount(0); // Clear existing data
-            ArrayList<Flight> flights = flightController.getAllFlights();
+        refreshFlightsTable(false);
+    }
 
-            for (Flight flight : flights) {
-                Object[] row = {
-                    flight.getFlightID(),
-                    flight.getAirplane() != null ? flight.getAirplane().getAirline().getName() : "N/A",
-                    flight.getRoute() != null ? flight.getRoute().getDepartureLocation().getCity() : "N/A",
-                    flight.getRoute() != null ? flight.getRoute().getArrivalLocation().getCity() : "N/A",
+    // quiet reports errors in the status bar instead of a dialog, for refreshes the user did not ask for
+    private void refreshFlightsTable(boolean quiet) {
+        SearchIndex<SearchRow> previous = flightIndex;
+        loader.load("flights", "flights", progress -> {
+            ArrayList<SearchRow> rows = new ArrayList<>();
+            for (Flight flight : flightController.getAllFlights()) {
+                boolean hasRoute = flight.getRoute() != null;
+                rows.add(new SearchRow(flightRow(flight), new String[]{
+                    hasRoute ? flight.getRoute().getDepartureLocation().getCity() : null,
+                    hasRoute ? flight.getRoute().getArrivalLocation().getCity() : null,
                     flight.getDepartureDate().toString(),
-                    flight.getArrivalDate().toString(),
-                    flight.getAvailableSeats(),
-                    String.format("$%.2f", flight.getPrice())
-                };
-                flightTableModel.addRow(row);
+                    String.valueOf(flight.getFlightID())
+                }));
+            }
+            if (previous != null && sameRows(previous.search(""), rows)) {
+                return previous; // Nothing changed, skip rebuilding the index
+            }
+            return new SearchIndex<>(rows, SearchRow::fields);
+        }, index -> {
+            if (index == flightIndex) {
+                return;
+            }
+            flightIndex = index;
+            applyFlightSearch(false);
+        }, ex -> {
+            if (quiet) {
+                loader.reportError("flights", ex);
+                return;
             }
-        } catch (Exception e) {
             JOptionPane.showMessageDialog(this,
-                "Error loading flights: " + e.getMessage(),
+                "Error loading flights: " + ex.getMessage(),
                 "Error",
                 JOptionPane.ERROR_MESSAGE);
+        });
+    }
+
+    private static boolean sameRows(List<SearchRow> a, List<SearchRow> b) {
+        if (a.size() != b.size()) {
+            return false;
         }
+        for (int i = 0; i < a.size(); i++) {
+            if (!Arrays.equals(a.get(i).row(), b.get(i).row()) || !Arrays.equals(a.get(i).fields(), b.get(i).fields())) {
+                return false;
+            }
+        }
+        return true;
     }
 
-    private void refreshCustomersTable() {
-        try {
-            customerTableModel.setRowCount(0);
-            ArrayList<Customer> customers = customerController.getAllCustomersAsArray();
+    // Shows the loaded flights matching the search field, from the index so no database call is made
+    private void applyFlightSearch(boolean reportNoMatch) {
+        flightSearchTimer.stop(); // A pending search would only repeat this one
+        if (flightIndex == null) {
+            return; // Applied when the load finishes, with whatever the field holds by then
+        }
+        int[] fields = switch ((String) flightSearchType.getSelectedItem()) {
+            case "By Origin" -> new int[]{FLIGHT_ORIGIN};
+            case "By Destination" -> new int[]{FLIGHT_DESTINATION};
+            case "By Date" -> new int[]{FLIGHT_DEPARTURE};
+            default -> ALL_FIELDS;
+        };
+        List<SearchRow> matches = flightIndex.search(flightSearchField.getText(), fields);
+        flightTableModel.setRows(toRows(matches));
+        if (matches.isEmpty() && reportNoMatch) {
+            JOptionPane.showMessageDialog(this, "No flights found matching your search criteria.",
+                "Search Results", JOptionPane.INFORMATION_MESSAGE);
+        }
+    }
+
+    // Reloads flights (keeping the search) and bookings, the tables only change where the data did
+    // Errors go to the status bar so a lost connection does not stack up a dialog every tick, and the
+    // cached seat maps are kept: a stale one only costs a failed claim, which reloads that flight
+    private void autoRefresh() {
+        if (!loader.isLoading("flights")) {
+            refreshFlightsTable(true);
+        }
+        if (!bookingTableModel.isRefreshing()) {
+            bookingTableModel.refresh(); // Reports its errors through the loader already
+        }
+    }
 
-            for (Customer customer : customers) {
+    private static Object[] flightRow(Flight flight) {
+        return new Object[]{
+            flight.getFlightID(),
+            flight.getAirplane() != null ? flight.getAirplane().getAirline().getName() : "N/A",
+            flight.getRoute() != null ? flight.getRoute().getDepartureLocation().getCity() : "N/A",
+            flight.getRoute() != null ? flight.getRoute().getArrivalLocation().getCity() : "N/A",
+            flight.getDepartureDate().toString(),
+            flight.getArrivalDate().toString(),
+            flight.getAvailableSeats(),
+            String.format("$%.2f", flight.getPrice())
+        };
+    }
+
+    // Reloads the customers in the background and indexes them, then shows those matching the current search
+    private void refreshCustomersTable() {
+        loader.load("customers", "customers", progress -> {
+            ArrayList<SearchRow> rows = new ArrayList<>();
+            for (Customer customer : customerController.getAllCustomersAsArray()) {
                 Object[] row = {
                     customer.getId(),
                     customer.getUsername(),
@@ -287,163 +405,94 @@ public class FlightAgentGUI extends JFrame {
                     customer.getEmail(),
                     customer.getDoB().toString()
                 };
-                customerTableModel.addRow(row);
+                rows.add(new SearchRow(row, new String[]{
+                    customer.getFirstName(), customer.getLastName(), customer.getUsername(), customer.getEmail()
+                }));
             }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading customers: " + e.getMessage(),
+            return new SearchIndex<>(rows, SearchRow::fields);
+        }, index -> {
+            customerIndex = index;
+            applyCustomerSearch();
+        }, ex -> JOptionPane.showMessageDialog(this,
+                "Error loading customers: " + ex.getMessage(),
                 "Error",
-                JOptionPane.ERROR_MESSAGE);
-        }
+                JOptionPane.ERROR_MESSAGE));
     }
 
-    private void refreshBookingsTable() {
-        try {
-            bookingTableModel.setRowCount(0);
-            ArrayList<Booking> bookings = bookingController.getAllBookings();
-
-            for (Booking booking : bookings) {
-                Object[] row = {
-                    booking.getBookingId(),
-                    booking.getCustomer().getFirstName() + " " + booking.getCustomer().getLastName(),
-                    booking.getCustomer().getId(),
-                    booking.getFlight().getFlightID(),
-                    booking.getFlight().getDepartureDate().toString(),
-                    booking.getFlight().getArrivalDate().toString(),
-                    booking.getSeatNumber()
-                };
-                bookingTableModel.addRow(row);
-            }
-        } catch (Exception e) {
-            JOptionPane.showMessageDialog(this,
-                "Error loading bookings: " + e.getMessage(),
-                "Error",
-                JOptionPane.ERROR_MESSAGE);
+    // Shows the loaded customers matching the search field by name, username or email
+    private void applyCustomerSearch() {
+        customerSearchTimer.stop();
+        if (customerIndex != null) {
+            customerTableModel.setRows(toRows(customerIndex.search(customerSearchField.getText(), ALL_FIELDS)));
         }
     }
 
-    // Action Listeners
-    private class SearchFlightListener implements ActionListener {
-        @Override
-        public void actionPerformed(ActionEvent e) {
-            String searchTerm = flightSearchField.getText().trim();
-            String searchType = (String) flightSearchType.getSelectedItem();
+    private static List<Object[]> toRows(List<SearchRow> matches) {
+        ArrayList<Object[]> rows = new ArrayList<>(matches.size());
+        for (SearchRow match : matches) {
+            rows.add(match.row());
+        }
+        return rows;
+    }
 
-            if (searchTerm.isEmpty()) {
-                refreshFlightsTable();
-                return;
+    /**
+     * Runs a search shortly after the field's text stops changing. Each edit restarts the delay,
+     * so a burst of keystrokes runs one search with the final text and the earlier queries never run.
+     *
+     * @return The delay timer, stop it when the search runs for another reason
+     * */
+    private static Timer searchAsYouType(JTextField field, Runnable search) {
+        Timer timer = new Timer(SEARCH_DELAY_MILLIS, e -> search.run());
+        timer.setRepeats(false);
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
             }
 
-            try {
-                flightTableModel.setRowCount(0);
-                ArrayList<Flight> allFlights = flightController.getAllFlights();
-                ArrayList<Flight> filteredFlights = new ArrayList<>();
-
-                for (Flight flight : allFlights) {
-                    boolean matches = false;
-                    switch (searchType) {
-                        case "By Origin":
-                            if (flight.getRoute() != null &&
-                                flight.getRoute().getDepartureLocation().getCity().toLowerCase().contains(searchTerm.toLowerCase())) {
-                                matches = true;
-                            }
-                            break;
-                        case "By Destination":
-                            if (flight.getRoute() != null &&
-                                flight.getRoute().getArrivalLocation().getCity().toLowerCase().contains(searchTerm.toLowerCase())) {
-                                matches = true;
-                            }
-                            break;
-                        case "By Date":
-                            if (flight.getDepartureDate().toString().contains(searchTerm)) {
-                                matches = true;
-                            }
-                            break;
-                        case "All":
-                        default:
-                            if ((flight.getRoute() != null &&
-                                 (flight.getRoute().getDepartureLocation().getCity().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                                  flight.getRoute().getArrivalLocation().getCity().toLowerCase().contains(searchTerm.toLowerCase()))) ||
-                                flight.getDepartureDate().toString().contains(searchTerm) ||
-                                String.valueOf(flight.getFlightID()).contains(searchTerm)) {
-                                matches = true;
-                            }
-                            break;
-                    }
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
 
-                    if (matches) {
-                        filteredFlights.add(flight);
-                    }
-                }
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // Attribute changes only, the text is the same
+            }
+        });
+        return timer;
+    }
 
-                // Add filtered flights to table
-                for (Flight flight : filteredFlights) {
-                    Object[] row = {
-                        flight.getFlightID(),
-                        flight.getAirplane() != null ? flight.getAirplane().getAirline().getName() : "N/A",
-                        flight.getRoute() != null ? flight.getRoute().getDepartureLocation().getCity() : "N/A",
-                        flight.getRoute() != null ? flight.getRoute().getArrivalLocation().getCity() : "N/A",
-                        flight.getDepartureDate().toString(),
-                        flight.getArrivalDate().toString(),
-                        flight.getAvailableSeats(),
-                        String.format("$%.2f", flight.getPrice())
-                    };
-                    flightTableModel.addRow(row);
-                }
+    private void refreshBookingsTable() {
+        bookingController.reloadSeatInventory(); // The table is about to show fresh data, seat checks should too
+        bookingTableModel.refresh();
+    }
 
-                if (filteredFlights.isEmpty()) {
-                    JOptionPane.showMessageDialog(FlightAgentGUI.this,
-                        "No flights found matching your search criteria.",
-                        "Search Results",
-                        JOptionPane.INFORMATION_MESSAGE);
-                }
+    private static Object[] bookingRow(Booking booking) {
+        return new Object[]{
+            booking.getBookingId(),
+            booking.getCustomer().getFirstName() + " " + booking.getCustomer().getLastName(),
+            booking.getCustomer().getId(),
+            booking.getFlight().getFlightID(),
+            booking.getFlight().getDepartureDate().toString(),
+            booking.getFlight().getArrivalDate().toString(),
+            booking.getSeatNumber()
+        };
+    }
 
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(FlightAgentGUI.this,
-                    "Error searching flights: " + ex.getMessage(),
-                    "Search Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+    // Action Listeners
+    // Searches right away instead of waiting for typing to pause, and says so when nothing matches
+    private class SearchFlightListener implements ActionListener {
+        @Override
+        public void actionPerformed(ActionEvent e) {
+            applyFlightSearch(true);
         }
     }
 
     private class SearchCustomerListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            String searchTerm = customerSearchField.getText().trim();
-
-            if (searchTerm.isEmpty()) {
-                refreshCustomersTable();
-                return;
-            }
-
-            try {
-                customerTableModel.setRowCount(0);
-                ArrayList<Customer> allCustomers = customerController.getAllCustomersAsArray();
-
-                for (Customer customer : allCustomers) {
-                    if (customer.getFirstName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        customer.getLastName().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        customer.getUsername().toLowerCase().contains(searchTerm.toLowerCase()) ||
-                        customer.getEmail().toLowerCase().contains(searchTerm.toLowerCase())) {
-
-                        Object[] row = {
-                            customer.getId(),
-                            customer.getUsername(),
-                            customer.getFirstName(),
-                            customer.getLastName(),
-                            customer.getEmail(),
-                            customer.getDoB().toString()
-                        };
-                        customerTableModel.addRow(row);
-                    }
-                }
-            } catch (Exception ex) {
-                JOptionPane.showMessageDialog(FlightAgentGUI.this,
-                    "Error searching customers: " + ex.getMessage(),
-                    "Search Error",
-                    JOptionPane.ERROR_MESSAGE);
-            }
+            applyCustomerSearch();
         }
     }
 
@@ -616,12 +665,21 @@ public class FlightAgentGUI extends JFrame {
     private class CreateBookingListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
-            // Create a dialog for creating a new booking
-            try {
-                // Get lists for selection
+            // Get lists for selection, the dialog opens once they are loaded
+            loader.load("booking-choices", "customers and flights", progress -> {
                 ArrayList<Customer> customers = customerController.getAllCustomersAsArray();
-                ArrayList<Flight> flights = flightController.getAllFlights();
+                progress.update(1, 2);
+                return new BookingChoices(customers, flightController.getAllFlights());
+            }, choices -> showDialog(choices.customers(), choices.flights()),
+            ex -> JOptionPane.showMessageDialog(FlightAgentGUI.this,
+                    "Error creating booking: " + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE));
+        }
 
+        // Create a dialog for creating a new booking
+        private void showDialog(ArrayList<Customer> customers, ArrayList<Flight> flights) {
+            try {
                 if (customers.isEmpty() || flights.isEmpty()) {
                     JOptionPane.showMessageDialog(FlightAgentGUI.this,
                         "No customers or flights available for booking.",
@@ -717,20 +775,25 @@ public class FlightAgentGUI extends JFrame {
                 return;
             }
 
-            try {
-                // Get the selected booking details
-                int bookingId = (int) bookingTableModel.getValueAt(selectedRow, 0);
-
-                // Get the full booking object
-                Booking bookingToEdit = null;
-                ArrayList<Booking> allBookings = bookingController.getAllBookings();
-                for (Booking booking : allBookings) {
-                    if (booking.getBookingId() == bookingId) {
-                        bookingToEdit = booking;
-                        break;
-                    }
-                }
+            if (!bookingTableModel.isRowLoaded(selectedRow)) {
+                return; // Still loading, the booking is not known yet
+            }
+
+            // Get the full booking and the flights it can move to, the dialog opens once they are loaded
+            int bookingId = bookingTableModel.getItem(selectedRow).getBookingId();
+            loader.load("booking-choices", "booking", progress -> {
+                Booking booking = bookingController.getBooking(bookingId);
+                progress.update(1, 2);
+                return new BookingToEdit(booking, booking == null ? null : flightController.getAllFlights());
+            }, toEdit -> showDialog(bookingId, toEdit.booking(), toEdit.flights()),
+            ex -> JOptionPane.showMessageDialog(FlightAgentGUI.this,
+                    "Error editing booking: " + ex.getMessage(),
+                    "Error",
+                    JOptionPane.ERROR_MESSAGE));
+        }
 
+        private void showDialog(int bookingId, Booking bookingToEdit, ArrayList<Flight> availableFlights) {
+            try {
                 if (bookingToEdit == null) {
                     JOptionPane.showMessageDialog(FlightAgentGUI.this,
                         "Could not find the selected booking.",
@@ -739,9 +802,6 @@ public class FlightAgentGUI extends JFrame {
                     return;
                 }
 
-                // Get available flights for the combo box
-                ArrayList<Flight> availableFlights = flightController.getAllFlights();
-
                 // Create edit dialog with more options
                 JPanel editPanel = new JPanel(new GridLayout(4, 2, 5, 5));
 
@@ -815,17 +875,11 @@ public class FlightAgentGUI extends JFrame {
                             return;
                         }
 
-                        // Check seat availability on the selected flight
-                        boolean seatTaken = false;
-                        ArrayList<Booking> allBookingsCheck = bookingController.getAllBookings();
-                        for (Booking booking : allBookingsCheck) {
-                            if (booking.getFlight().getFlightID() == selectedFlight.getFlightID() &&
-                                booking.getBookingId() != bookingId &&
-                                booking.getSeatNumber() == newSeatNumber) {
-                                seatTaken = true;
-                                break;
-                            }
-                        }
+                        // Check seat availability on the selected flight, keeping the booking's own seat is fine
+                        boolean ownSeat = selectedFlight.getFlightID() == bookingToEdit.getFlight().getFlightID() &&
+                                          newSeatNumber == bookingToEdit.getSeatNumber();
+                        boolean seatTaken = !ownSeat &&
+                            bookingController.isSeatTaken(selectedFlight.getFlightID(), newSeatNumber);
 
                         if (seatTaken) {
                             JOptionPane.showMessageDialog(FlightAgentGUI.this,
@@ -889,7 +943,11 @@ public class FlightAgentGUI extends JFrame {
                 return;
             }
 
-            int bookingId = (int) bookingTableModel.getValueAt(selectedRow, 0);
+            if (!bookingTableModel.isRowLoaded(selectedRow)) {
+                return; // Still loading, the booking is not known yet
+            }
+
+            int bookingId = bookingTableModel.getItem(selectedRow).getBookingId();
             String bookingInfo = "Booking ID: " + bookingId +
                                ", Customer: " + bookingTableModel.getValueAt(selectedRow, 1);
 
@@ -929,6 +987,8 @@ public class FlightAgentGUI extends JFrame {
                 JOptionPane.YES_NO_OPTION);
 
             if (result == JOptionPane.YES_OPTION) {
+                autoRefreshTimer.stop();
+                loader.cancelAll();
                 db.disconnect();
                 dispose();
                 new LoginGUI().setVisible(true);
@@ -0,0 +1,172 @@
+// KeyedTableModel.java
+// Read-only table model whose rows are identified by the value in their first column (the id)
+// setRows diffs fresh data against the current rows and fires only insert, update and delete events,
+// so a refresh keeps the selection and scroll position and repaints only the rows that changed
+package gui;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Vector;
+import javax.swing.table.DefaultTableModel;
+
+public class KeyedTableModel extends DefaultTableModel {
+
+    public KeyedTableModel(String[] columnNames) {
+        super(columnNames, 0);
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    /**
+     * Makes the rows equal to the given ones, in their order. Rows whose id is gone are deleted,
+     * new ids are inserted and rows with the same id are updated only if a cell changed.
+     *
+     * @param rows Fresh rows, the id in column 0 must be unique
+     * */
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    public void setRows(List<Object[]> rows) {
+        Vector<Vector> data = getDataVector();
+        HashMap<Object, Integer> newIndex = new HashMap<>(rows.size() * 2);
+        for (int i = 0; i < rows.size(); i++) {
+            newIndex.put(rows.get(i)[0], i);
+        }
+        HashSet<Object> oldIds = new HashSet<>(data.size() * 2);
+        for (Vector row : data) {
+            oldIds.add(row.get(0));
+        }
+        if (newIndex.size() != rows.size() || oldIds.size() != data.size()) {
+            replaceAll(rows); // Ids are not unique, nothing to match rows by
+            return;
+        }
+
+        // Rows that stay: their new positions in current order. The longest increasing run of those can stay
+        // where it is, the rest moved under the new order and is deleted and inserted again
+        int[] kept = new int[data.size()];
+        int keptCount = 0;
+        for (Vector row : data) {
+            Integer position = newIndex.get(row.get(0));
+            if (position != null) {
+                kept[keptCount++] = position;
+            }
+        }
+        boolean[] inPlace = longestIncreasing(kept, keptCount, rows.size());
+
+        // Deletes, bottom up so the indexes above stay valid, one event per contiguous run
+        int runEnd = -1;
+        for (int i = data.size() - 1; i >= 0; i--) {
+            Integer position = newIndex.get(data.get(i).get(0));
+            boolean delete = position == null || !inPlace[position];
+            if (delete && runEnd < 0) {
+                runEnd = i;
+            }
+            if (!delete && runEnd >= 0) {
+                removeRange(data, i + 1, runEnd);
+                runEnd = -1;
+            }
+        }
+        if (runEnd >= 0) {
+            removeRange(data, 0, runEnd);
+        }
+
+        // What is left is in the new order, walk both lists to insert the missing rows and update changed ones
+        int insertStart = -1;
+        int updateStart = -1;
+        int updateEnd = -1;
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            if (inPlace[i]) {
+                if (insertStart >= 0) {
+                    fireTableRowsInserted(insertStart, i - 1);
+                    insertStart = -1;
+                }
+                Vector current = data.get(i);
+                if (!sameCells(current, row)) {
+                    data.set(i, new Vector<>(Arrays.asList(row)));
+                    if (updateStart < 0) {
+                        updateStart = i;
+                    }
+                    updateEnd = i;
+                }
+            }
+            else {
+                data.add(i, new Vector<>(Arrays.asList(row)));
+                if (insertStart < 0) {
+                    insertStart = i;
+                }
+            }
+        }
+        if (insertStart >= 0) {
+            fireTableRowsInserted(insertStart, rows.size() - 1);
+        }
+        if (updateStart >= 0) {
+            // One event over the changed span, Swing repaints only what of it is visible
+            fireTableRowsUpdated(updateStart, updateEnd);
+        }
+    }
+
+    @SuppressWarnings("rawtypes")
+    private void removeRange(Vector<Vector> data, int first, int last) {
+        data.subList(first, last + 1).clear();
+        fireTableRowsDeleted(first, last);
+    }
+
+    @SuppressWarnings({"rawtypes", "unchecked"})
+    private void replaceAll(List<Object[]> rows) {
+        Vector<Vector> data = getDataVector();
+        data.clear();
+        for (Object[] row : rows) {
+            data.add(new Vector<>(Arrays.asList(row)));
+        }
+        fireTableDataChanged();
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static boolean sameCells(Vector current, Object[] row) {
+        if (current.size() != row.length) {
+            return false;
+        }
+        for (int i = 0; i < row.length; i++) {
+            if (!Objects.equals(current.get(i), row[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Marks, by value, the members of a longest strictly increasing subsequence of values[0..count)
+    private static boolean[] longestIncreasing(int[] values, int count, int maxValue) {
+        int[] tails = new int[count]; // Index into values of the smallest tail of each run length
+        int[] previous = new int[count];
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            int low = 0;
+            int high = length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (values[tails[mid]] < values[i]) {
+                    low = mid + 1;
+                }
+                else {
+                    high = mid;
+                }
+            }
+            previous[i] = low > 0 ? tails[low - 1] : -1;
+            tails[low] = i;
+            if (low == length) {
+                length++;
+            }
+        }
+
+        boolean[] marked = new boolean[maxValue];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            marked[values[i]] = true;
+        }
+        return marked;
+    }
+}
@@ -0,0 +1,222 @@
+// KeyedTableModelTest.java
+// Checks KeyedTableModel.setRows: the events it fires, replayed on a copy of the old rows, must rebuild the new rows
+// Runs in memory only, no window is opened, run with: java gui.KeyedTableModelTest
+package gui;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import javax.swing.event.TableModelEvent;
+
+public class KeyedTableModelTest {
+    private static final String[] COLUMNS = {"ID", "Name"};
+
+    public static void main(String[] args) {
+        try {
+            testEmptyToFullToEmpty();
+            testInsertInTheMiddle();
+            testDeleteRuns();
+            testUpdates();
+            testReorder();
+            testDuplicateIds();
+            testRandomChanges();
+
+            System.out.println("\n=== ALL TESTS COMPLETED SUCCESSFULLY! ===");
+        }
+        catch (Exception e) {
+            System.err.println("Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void testEmptyToFullToEmpty() {
+        System.out.println("\n=== Testing Empty -> Full -> Empty ===");
+        Replay replay = new Replay();
+        replay.setRows(rows(1, 2, 3, 4, 5));
+        replay.expectEvents(1, 0, 0);
+        replay.setRows(rows());
+        replay.expectEvents(0, 1, 0);
+        replay.setRows(rows());
+        replay.expectEvents(0, 0, 0);
+        System.out.println("✓ Filled with one insert, emptied with one delete, no events for no change");
+    }
+
+    private static void testInsertInTheMiddle() {
+        System.out.println("\n=== Testing Insert In The Middle ===");
+        Replay replay = new Replay(rows(1, 2, 5, 6));
+        replay.setRows(rows(1, 2, 3, 4, 5, 6));
+        replay.expectEvents(1, 0, 0);
+        replay.setRows(rows(0, 1, 2, 3, 4, 5, 6, 7));
+        replay.expectEvents(2, 0, 0);
+        System.out.println("✓ Each inserted run is one insert event, the other rows are left alone");
+    }
+
+    private static void testDeleteRuns() {
+        System.out.println("\n=== Testing Delete Runs ===");
+        Replay replay = new Replay(rows(1, 2, 3, 4, 5, 6, 7, 8, 9));
+        replay.setRows(rows(1, 4, 5, 9));
+        replay.expectEvents(0, 2, 0);
+        replay.setRows(rows(4, 5));
+        replay.expectEvents(0, 2, 0);
+        System.out.println("✓ Each deleted run is one delete event, including runs at either end");
+    }
+
+    private static void testUpdates() {
+        System.out.println("\n=== Testing Updates ===");
+        Replay replay = new Replay(rows(1, 2, 3, 4));
+        List<Object[]> changed = rows(1, 2, 3, 4);
+        changed.get(1)[1] = "changed";
+        changed.get(3)[1] = "changed too";
+        replay.setRows(changed);
+        replay.expectEvents(0, 0, 1);
+        System.out.println("✓ Changed cells are one update event, the ids stay in place");
+    }
+
+    private static void testReorder() {
+        System.out.println("\n=== Testing Reorder ===");
+        Replay replay = new Replay(rows(1, 2, 3, 4, 5, 6));
+        replay.setRows(rows(1, 2, 4, 5, 6, 3)); // One row moved down
+        replay.expectEvents(1, 1, 0);
+        replay.setRows(rows(6, 5, 4, 3, 2, 1)); // Reversed, only one row can stay
+        replay.setRows(rows(2, 1, 4, 3, 6, 5)); // Pairs swapped
+        System.out.println("✓ Moved rows are deleted and inserted again, reversals and swaps replay correctly");
+    }
+
+    private static void testDuplicateIds() {
+        System.out.println("\n=== Testing Duplicate Ids ===");
+        Replay replay = new Replay(rows(1, 2, 3));
+        replay.setRows(rows(1, 2, 2, 3)); // New rows repeat an id
+        replay.expectDataChanged();
+        replay.setRows(rows(1, 3)); // Old rows repeat an id
+        replay.expectDataChanged();
+        System.out.println("✓ Repeated ids replace every row with one data changed event");
+    }
+
+    // Random edits of a random table, every result must replay to the new rows
+    private static void testRandomChanges() {
+        System.out.println("\n=== Testing Random Changes ===");
+        Random random = new Random(42);
+        Replay replay = new Replay();
+        int rounds = 2000;
+        for (int round = 0; round < rounds; round++) {
+            ArrayList<Object[]> next = new ArrayList<>();
+            for (int id = 0; id < 40; id++) {
+                if (random.nextInt(3) > 0) {
+                    next.add(new Object[]{id, "name " + random.nextInt(3)});
+                }
+            }
+            for (int swaps = random.nextInt(4); swaps > 0; swaps--) {
+                if (next.size() > 1) {
+                    int from = random.nextInt(next.size());
+                    next.add(random.nextInt(next.size()), next.remove(from));
+                }
+            }
+            replay.setRows(next);
+        }
+        System.out.println("✓ " + rounds + " random updates replayed to the expected rows");
+    }
+
+    private static List<Object[]> rows(int... ids) {
+        ArrayList<Object[]> rows = new ArrayList<>();
+        for (int id : ids) {
+            rows.add(new Object[]{id, "row " + id});
+        }
+        return rows;
+    }
+
+    // A model and a copy of its rows kept up to date only from the events the model fires
+    private static class Replay {
+        private final KeyedTableModel model = new KeyedTableModel(COLUMNS);
+        private final ArrayList<Object[]> copy = new ArrayList<>();
+        private int inserts;
+        private int deletes;
+        private int updates;
+        private int dataChanges;
+
+        private Replay() {
+            model.addTableModelListener(e -> {
+                if (e.getFirstRow() == TableModelEvent.HEADER_ROW) {
+                    return;
+                }
+                if (e.getFirstRow() == 0 && e.getLastRow() == Integer.MAX_VALUE) {
+                    dataChanges++;
+                    copy.clear();
+                    for (int row = 0; row < model.getRowCount(); row++) {
+                        copy.add(rowOf(row));
+                    }
+                    return;
+                }
+                switch (e.getType()) {
+                    case TableModelEvent.INSERT -> {
+                        inserts++;
+                        for (int row = e.getFirstRow(); row <= e.getLastRow(); row++) {
+                            copy.add(row, rowOf(row));
+                        }
+                    }
+                    case TableModelEvent.DELETE -> {
+                        deletes++;
+                        copy.subList(e.getFirstRow(), e.getLastRow() + 1).clear();
+                    }
+                    default -> {
+                        updates++;
+                        for (int row = e.getFirstRow(); row <= e.getLastRow(); row++) {
+                            copy.set(row, rowOf(row));
+                        }
+                    }
+                }
+            });
+        }
+
+        private Replay(List<Object[]> rows) {
+            this();
+            setRows(rows);
+        }
+
+        // Sets the rows, checks the model and the replayed copy both hold them, and starts counting events afresh
+        private void setRows(List<Object[]> rows) {
+            inserts = 0;
+            deletes = 0;
+            updates = 0;
+            dataChanges = 0;
+            model.setRows(rows);
+            for (int row = 0; row < model.getRowCount(); row++) {
+                if (!Arrays.equals(rowOf(row), row < rows.size() ? rows.get(row) : null)) {
+                    throw new IllegalStateException("Model row " + row + " is " + Arrays.toString(rowOf(row)));
+                }
+            }
+            if (model.getRowCount() != rows.size() || copy.size() != rows.size()) {
+                throw new IllegalStateException("Expected " + rows.size() + " rows, model has " + model.getRowCount()
+                    + " and the replayed events give " + copy.size());
+            }
+            for (int row = 0; row < rows.size(); row++) {
+                if (!Arrays.equals(copy.get(row), rows.get(row))) {
+                    throw new IllegalStateException("Replayed row " + row + " is " + Arrays.toString(copy.get(row))
+                        + ", expected " + Arrays.toString(rows.get(row)));
+                }
+            }
+        }
+
+        private void expectEvents(int inserts, int deletes, int updates) {
+            if (this.inserts != inserts || this.deletes != deletes || this.updates != updates || dataChanges != 0) {
+                throw new IllegalStateException("Expected " + inserts + " insert, " + deletes + " delete and "
+                    + updates + " update events, got " + this.inserts + ", " + this.deletes + ", " + this.updates
+                    + " and " + dataChanges + " data changed");
+            }
+        }
+
+        private void expectDataChanged() {
+            if (dataChanges != 1 || inserts + deletes + updates != 0) {
+                throw new IllegalStateException("Expected one data changed event, got " + dataChanges);
+            }
+        }
+
+        private Object[] rowOf(int row) {
+            Object[] cells = new Object[model.getColumnCount()];
+            for (int column = 0; column < cells.length; column++) {
+                cells[column] = model.getValueAt(row, column);
+            }
+            return cells;
+        }
+    }
+}
@@ -0,0 +1,273 @@
+// PagedTableModel.java
+// Table model for tables too big to load whole: rows are fetched a page at a time when the table first asks for them
+// Only a bounded number of pages is kept, sorting is done by the database, loads go through a BackgroundLoader
+// A refresh keeps showing the cached pages and fires update events only for the rows that changed
+package gui;
+
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import javax.swing.JTable;
+import javax.swing.table.AbstractTableModel;
+
+public class PagedTableModel<T> extends AbstractTableModel {
+    private static final int MAX_PAGE_LOADS = 4; // Older page loads are dropped when the user scrolls past them
+
+    // Where the rows come from, called off the EDT
+    public interface PageSource<T> {
+        int count() throws Exception;
+
+        /**
+         * Fetches one page in the given order.
+         *
+         * @param sortBy Sort key of the sorted column
+         * @param after Last row of the previous page if the model has it, lets the source seek instead of skipping
+         * @param offset Index of the first row of the page
+         * */
+        List<T> fetch(String sortBy, boolean descending, T after, int offset, int limit) throws Exception;
+    }
+
+    private final String name; // Loader key prefix and status bar text
+    private final String[] columnNames;
+    private final String[] sortKeys; // Per column, null if the column cannot be sorted
+    private final PageSource<T> source;
+    private final Function<T, Object[]> toRow;
+    private final BackgroundLoader loader;
+    private final int pageSize;
+
+    // All of the below is only touched on the EDT
+    private final LinkedHashMap<Integer, Page<T>> pages; // Least recently used first
+    private final LinkedHashSet<String> pageLoads = new LinkedHashSet<>(); // Oldest first
+    private final HashSet<Integer> stalePages = new HashSet<>(); // Shown until their refetch arrives
+    private int rowCount = 0;
+    private int sortColumn = 0;
+    private boolean descending = false;
+    private int generation = 0; // Bumped whenever the cached pages stop being valid
+    private int evictedPage = -1; // Page dropped by the last put, -1 if none
+
+    private record Page<T>(List<T> items, List<Object[]> rows) { }
+
+    /**
+     * Creates an empty model, call refresh() to load it.
+     *
+     * @param name Shown in the status bar while pages load, e.g. "flights"
+     * @param sortKeys Per column the key passed to the source to sort by it, null if not sortable; the first column must be sortable
+     * @param toRow Turns a fetched item into the cells of its row, called off the EDT
+     * @param pageSize Rows per fetch
+     * @param maxPages Pages kept in memory, the least recently shown ones are dropped
+     * */
+    public PagedTableModel(String name, String[] columnNames, String[] sortKeys, PageSource<T> source,
+                           Function<T, Object[]> toRow, BackgroundLoader loader, int pageSize, int maxPages) {
+        this.name = name;
+        this.columnNames = columnNames;
+        this.sortKeys = sortKeys;
+        this.source = source;
+        this.toRow = toRow;
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.pages = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page<T>> eldest) {
+                boolean evict = size() > maxPages;
+                evictedPage = evict ? eldest.getKey() : -1;
+                return evict;
+            }
+        };
+    }
+
+    // Recounts the rows and fetches the visible pages again, keeping the selection and scroll position
+    public void refresh() {
+        int expected = ++generation;
+        cancelPageLoads();
+        loader.load(name + ":count", name, progress -> source.count(), count -> {
+            if (expected != generation) {
+                return;
+            }
+            int oldCount = rowCount;
+            rowCount = count;
+            if (count > oldCount) {
+                fireTableRowsInserted(oldCount, count - 1);
+            }
+            else if (count < oldCount) {
+                fireTableRowsDeleted(count, oldCount - 1);
+            }
+            stalePages.addAll(pages.keySet());
+            if (count > 0 && !stalePages.isEmpty()) {
+                fireTableRowsUpdated(0, count - 1); // Repaints what is visible, which requests those pages again
+            }
+        });
+    }
+
+    // A refresh is still counting the rows
+    public boolean isRefreshing() {
+        return loader.isLoading(name + ":count");
+    }
+
+    // Sorts by the column, or flips the direction if it is already sorted by it
+    public void sortBy(int column) {
+        if (sortKeys[column] == null) {
+            return;
+        }
+        descending = column == sortColumn && !descending;
+        sortColumn = column;
+        generation++;
+        cancelPageLoads();
+        pages.clear();
+        stalePages.clear();
+        fireTableDataChanged();
+    }
+
+    // Sorts when a header is clicked and shows the sort direction in the header
+    public void installSorting(JTable table) {
+        table.getTableHeader().addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int viewColumn = table.columnAtPoint(e.getPoint());
+                if (viewColumn < 0) {
+                    return;
+                }
+                sortBy(table.convertColumnIndexToModel(viewColumn));
+                for (int i = 0; i < table.getColumnCount(); i++) {
+                    int column = table.convertColumnIndexToModel(i);
+                    table.getColumnModel().getColumn(i).setHeaderValue(getColumnName(column));
+                }
+                table.getTableHeader().repaint();
+            }
+        });
+    }
+
+    // True once the row's page is loaded, getValueAt returns null for the row until then
+    public boolean isRowLoaded(int row) {
+        return getItem(row) != null;
+    }
+
+    // The item behind a row, or null while its page is loading
+    public T getItem(int row) {
+        Page<T> page = pages.get(row / pageSize);
+        int index = row % pageSize;
+        return page == null || index >= page.items().size() ? null : page.items().get(index);
+    }
+
+    @Override
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columnNames.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        if (column != sortColumn) {
+            return columnNames[column];
+        }
+        return columnNames[column] + (descending ? " ▼" : " ▲");
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int pageIndex = row / pageSize;
+        Page<T> page = pages.get(pageIndex);
+        if (page == null || stalePages.contains(pageIndex)) {
+            requestPage(pageIndex);
+        }
+        if (page == null) {
+            return null;
+        }
+        int index = row % pageSize;
+        return index < page.rows().size() ? page.rows().get(index)[column] : null; // The table shrank since the count
+    }
+
+    private void requestPage(int pageIndex) {
+        String key = name + ":" + generation + ":" + pageIndex;
+        if (pageLoads.contains(key)) {
+            return;
+        }
+        if (pageLoads.size() >= MAX_PAGE_LOADS) {
+            // The oldest request is most likely for rows already scrolled past, it is fetched again if still shown
+            Iterator<String> oldest = pageLoads.iterator();
+            loader.cancel(oldest.next());
+            oldest.remove();
+        }
+        pageLoads.add(key);
+
+        int expected = generation;
+        String sortBy = sortKeys[sortColumn];
+        boolean desc = descending;
+        Page<T> previous = pages.get(pageIndex - 1);
+        boolean seekable = previous != null && previous.items().size() == pageSize && !stalePages.contains(pageIndex - 1);
+        T after = seekable ? previous.items().get(pageSize - 1) : null; // A stale page may no longer end where this one starts
+        loader.load(key, name, progress -> {
+            List<T> items = source.fetch(sortBy, desc, after, pageIndex * pageSize, pageSize);
+            ArrayList<Object[]> rows = new ArrayList<>(items.size());
+            for (T item : items) {
+                rows.add(toRow.apply(item));
+            }
+            return new Page<>(items, rows);
+        }, page -> {
+            pageLoads.remove(key);
+            if (expected != generation) {
+                return;
+            }
+            Page<T> old = pages.put(pageIndex, page);
+            stalePages.remove(pageIndex);
+            if (old != null) {
+                firePageChanges(pageIndex, old, page);
+            }
+            else {
+                firePageRows(pageIndex);
+            }
+            if (evictedPage >= 0) {
+                firePageRows(evictedPage); // Requested again if it is still on screen
+                evictedPage = -1;
+            }
+        }, e -> {
+            // Not removed from pageLoads, so a failing page is not retried on every repaint until refresh()
+            loader.reportError(name, e);
+        });
+    }
+
+    // Fires an update event over the rows of one page, clipped to the current row count
+    private void firePageRows(int pageIndex) {
+        int first = pageIndex * pageSize;
+        int last = Math.min(first + pageSize, rowCount) - 1;
+        if (first <= last) {
+            fireTableRowsUpdated(first, last);
+        }
+    }
+
+    // Fires one update event over the rows of a refetched page whose cells differ from before
+    private void firePageChanges(int pageIndex, Page<T> old, Page<T> fresh) {
+        int first = -1;
+        int last = -1;
+        for (int i = 0; i < Math.max(old.rows().size(), fresh.rows().size()); i++) {
+            boolean same = i < old.rows().size() && i < fresh.rows().size()
+                && Arrays.equals(old.rows().get(i), fresh.rows().get(i));
+            if (!same) {
+                first = first < 0 ? i : first;
+                last = i;
+            }
+        }
+        int lastRow = Math.min(pageIndex * pageSize + last, rowCount - 1);
+        if (first >= 0 && pageIndex * pageSize + first <= lastRow) {
+            fireTableRowsUpdated(pageIndex * pageSize + first, lastRow);
+        }
+    }
+
+    private void cancelPageLoads() {
+        for (String key : pageLoads) {
+            loader.cancel(key);
+        }
+        pageLoads.clear();
+    }
+}
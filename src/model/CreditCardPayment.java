@@ -6,11 +6,17 @@ package model;
 public class CreditCardPayment implements PaymentStrategy {
 
     private Card card; 
-    private static final double SUCCESS_RATE = 0.9;
+    private PaymentGateway gateway;
+    private static final PaymentGateway DEFAULT_GATEWAY = SimulatedGateway.creditCard(); // Shared, so throttling applies to all payments
 
     // === Constructors ===
     public CreditCardPayment(Card card){
-        this.card = card; 
+        this(card, DEFAULT_GATEWAY);
+    }
+
+    public CreditCardPayment(Card card, PaymentGateway gateway){
+        this.card = card;
+        this.gateway = gateway;
     }
     
     // === Other Methods ===
@@ -18,9 +24,10 @@ public class CreditCardPayment implements PaymentStrategy {
     public String pay(double amount) {
 
         System.out.println("Processing card: " + card.getNumber());
-        System.out.println("Processing credit card... (" + (SUCCESS_RATE * 100) + "% success rate)");
+        System.out.println("Processing credit card...");
 
-        if (Math.random() > SUCCESS_RATE) {
+        String result = gateway.charge(card.getNumber(), amount);
+        if (!result.equals("Success")) {
             System.out.println("Credit card payment failed.");
             return "Failed";
         }
@@ -28,4 +35,9 @@ public class CreditCardPayment implements PaymentStrategy {
         System.out.println("Paid via Credit Card: $" + amount);
         return "Success";
     }
+
+    @Override
+    public String getMethodName() {
+        return "Credit Card";
+    }
 }
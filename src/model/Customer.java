@@ -6,6 +6,8 @@
 
 package model;
 
+import java.util.List;
+
 public class Customer extends Person implements PromotionObserver {
     private Address address;
     private String email;
@@ -54,6 +56,20 @@ public class Customer extends Person implements PromotionObserver {
             promotion.getPromoCode() + " - " + promotion.getDescription());
     }
 
+    // One log line for the whole batch instead of one per promotion
+    @Override
+    public void updateAll(List<Promotion> promotions) {
+        if (promotions.size() == 1) {
+            update(promotions.get(0));
+            return;
+        }
+        StringBuilder codes = new StringBuilder();
+        for (Promotion promotion : promotions) {
+            codes.append(codes.length() == 0 ? "" : ", ").append(promotion.getPromoCode());
+        }
+        System.out.println("Customer " + getUsername() + " received " + promotions.size() + " promotions: " + codes);
+    }
+
 
     @Override
     public String toString() {
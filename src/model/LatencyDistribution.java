@@ -0,0 +1,31 @@
+// LatencyDistribution.java
+// How long a simulated gateway takes to answer, sampled once per request
+
+package model;
+
+import java.util.Random;
+
+@FunctionalInterface
+public interface LatencyDistribution {
+
+    public long sampleMillis(Random random);
+
+    // Always the same delay
+    public static LatencyDistribution fixed(long millis) {
+        return random -> millis;
+    }
+
+    // Most answers close to the median with a moderate tail, typical for a healthy service
+    public static LatencyDistribution logNormal(long medianMillis, double sigma, long maxMillis) {
+        double mu = Math.log(medianMillis);
+        return random -> Math.min(maxMillis, Math.round(Math.exp(mu + sigma * random.nextGaussian())));
+    }
+
+    // Pareto: usually fast, but now and then very slow (alpha below 2 means a very heavy tail)
+    public static LatencyDistribution heavyTailed(long minMillis, double alpha, long maxMillis) {
+        return random -> {
+            double u = 1.0 - random.nextDouble(); // (0, 1], avoids dividing by zero
+            return Math.min(maxMillis, Math.round(minMillis / Math.pow(u, 1.0 / alpha)));
+        };
+    }
+}
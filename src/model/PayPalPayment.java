@@ -6,11 +6,17 @@ package model;
 
 public class PayPalPayment implements PaymentStrategy {
     private Card card; 
-    private static final double SUCCESS_RATE = 0.8;
+    private PaymentGateway gateway;
+    private static final PaymentGateway DEFAULT_GATEWAY = SimulatedGateway.payPal(); // Shared, so throttling applies to all payments
 
     // === Constructor ===
     public PayPalPayment(Card card){
-        this.card = card; 
+        this(card, DEFAULT_GATEWAY);
+    }
+
+    public PayPalPayment(Card card, PaymentGateway gateway){
+        this.card = card;
+        this.gateway = gateway;
     }
 
     // === Other Methods ===
@@ -18,9 +24,10 @@ public class PayPalPayment implements PaymentStrategy {
     public String pay(double amount) {
 
         System.out.println("Processing card: " + card.getNumber());
-        System.out.println("Contacting PayPal... (" + (SUCCESS_RATE * 100) + "% success rate)");
+        System.out.println("Contacting PayPal...");
 
-        if (Math.random() > SUCCESS_RATE) {
+        String result = gateway.charge(card.getNumber(), amount);
+        if (!result.equals("Success")) {
             System.out.println("PayPal payment failed.");
             return "Failed";
         }
@@ -29,4 +36,8 @@ public class PayPalPayment implements PaymentStrategy {
         return "Success";
     }
 
+    @Override
+    public String getMethodName() {
+        return "PayPal";
+    }
 }
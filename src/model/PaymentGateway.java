@@ -0,0 +1,18 @@
+// PaymentGateway.java
+// What a PaymentStrategy talks to in order to move money, see SimulatedGateway for the local stand-in
+
+package model;
+
+public interface PaymentGateway {
+
+    // Returns "Success" or "Failed" (declined), may block while the gateway answers
+    // Throws GatewayUnavailableException when the gateway cannot take the request at all
+    public String charge(String cardNumber, double amount);
+
+    // Thrown for outages and throttling, as opposed to a declined payment
+    public static class GatewayUnavailableException extends RuntimeException {
+        public GatewayUnavailableException(String message) {
+            super(message);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 // PaymentStrategy.java
 // Strategy interface for payment methods
+// pay may block while the gateway answers, service.PaymentProcessor runs it off the GUI thread
 
 package model;
 
@@ -7,4 +8,7 @@ public interface PaymentStrategy {
     
     public String pay(double amount); 
 
+    // Shown to the customer, e.g. "Paid via Credit Card"
+    public String getMethodName();
+
 }
@@ -2,6 +2,15 @@
 // Observer interface for promotion updates
 package model;
 
+import java.util.List;
+
 public interface PromotionObserver {
     void update(Promotion promotion);
+
+    // Called with several promotions at once when they queue up for this observer, in the order published
+    default void updateAll(List<Promotion> promotions) {
+        for (Promotion promotion : promotions) {
+            update(promotion);
+        }
+    }
 }
\ No newline at end of file
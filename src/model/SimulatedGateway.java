@@ -0,0 +1,100 @@
+// SimulatedGateway.java
+// Local payment gateway for testing and capacity planning, no external service needed
+// Answers after a sampled latency, declines a share of payments and can throttle or go down for set windows
+
+package model;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+public class SimulatedGateway implements PaymentGateway {
+    private final String name;
+    private final LatencyDistribution latency;
+    private final double declineRate; // Share of payments the card issuer refuses
+    private final long startMillis = System.currentTimeMillis();
+    private final ArrayList<long[]> outages = new ArrayList<>(); // {from, to} in millis after start, guarded by this
+
+    // Throttling, a token bucket that refills at maxRequestsPerSecond, guarded by this
+    private double maxRequestsPerSecond = 0; // 0 = no limit
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    // === Constructors ===
+    public SimulatedGateway(String name, LatencyDistribution latency, double declineRate) {
+        this.name = name;
+        this.latency = latency;
+        this.declineRate = declineRate;
+    }
+
+    // The gateways the payment strategies use unless given another one
+    // Latency is capped below PaymentProcessor's 10 s attempt timeout, PaymentLoadTest builds its own heavier tails
+    public static SimulatedGateway creditCard() {
+        return new SimulatedGateway("Credit card gateway", LatencyDistribution.logNormal(400, 0.5, 8_000), 0.1);
+    }
+
+    public static SimulatedGateway payPal() {
+        return new SimulatedGateway("PayPal", LatencyDistribution.logNormal(900, 0.7, 8_000), 0.2);
+    }
+
+    // === Setters ===
+
+    // Requests beyond this rate are rejected straight away, 0 turns throttling off
+    public synchronized void setMaxRequestsPerSecond(double maxRequestsPerSecond) {
+        this.maxRequestsPerSecond = maxRequestsPerSecond;
+        this.tokens = maxRequestsPerSecond; // Allows a burst of one second's worth
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    // The gateway is down from startAfterMillis (counted from its creation) for durationMillis
+    public synchronized void addOutage(long startAfterMillis, long durationMillis) {
+        outages.add(new long[]{startAfterMillis, startAfterMillis + durationMillis});
+    }
+
+    // === Other Methods ===
+    @Override
+    public String charge(String cardNumber, double amount) {
+        if (isDown()) {
+            throw new GatewayUnavailableException(name + " is unavailable.");
+        }
+        if (!takeToken()) {
+            throw new GatewayUnavailableException(name + " is busy, too many requests.");
+        }
+
+        Random random = ThreadLocalRandom.current();
+        try {
+            Thread.sleep(latency.sampleMillis(random));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt(); // The caller gave up, keep the flag for it
+            return "Failed";
+        }
+        return random.nextDouble() < declineRate ? "Failed" : "Success";
+    }
+
+    public String getName() { return name; }
+
+    private synchronized boolean isDown() {
+        long now = System.currentTimeMillis() - startMillis;
+        for (long[] outage : outages) {
+            if (now >= outage[0] && now < outage[1]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private synchronized boolean takeToken() {
+        if (maxRequestsPerSecond <= 0) {
+            return true;
+        }
+        long now = System.nanoTime();
+        tokens = Math.min(maxRequestsPerSecond, tokens + (now - lastRefillNanos) / 1e9 * maxRequestsPerSecond);
+        lastRefillNanos = now;
+        if (tokens < 1) {
+            return false;
+        }
+        tokens--;
+        return true;
+    }
+}
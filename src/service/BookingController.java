@@ -4,35 +4,209 @@ package service;
 import backend.DatabaseManager;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import model.*;
+import service.SeatHoldManager.SeatHold;
 
 public class BookingController {
+    private static final int ER_DUP_ENTRY = 1062; // MySQL error code for a unique key violation
+    public static final int MAX_GROUP_SIZE = 9; // Seats in one group booking
+    public static final int MAX_SEAT_NUMBER = 500; // Highest seat number the GUIs accept
+    private static final int ADJACENT_ATTEMPTS = 3; // Searches before giving up when others keep taking the seats found
+
     private DatabaseManager db = DatabaseManager.getInstance();
+    private SeatInventory seatInventory = SeatInventory.getInstance();
+    private SeatHoldManager seatHolds = SeatHoldManager.getInstance();
 
     // Creates a new booking by inserting it into the database with customer and flight details
     // Returns a Booking object with the assigned bookingId
     public Booking createBooking(Customer customer, Flight flight, int seatNumber) throws SQLException {
-        int bookingId = db.insertBooking(customer.getId(), flight.getFlightID(), seatNumber);
+        int flightId = flight.getFlightID();
+        // Claim the seat in memory first so concurrent bookers of the same seat lose without a database round trip
+        if (!seatInventory.tryClaim(flightId, seatNumber)) {
+            throw seatTaken(flightId, seatNumber, null);
+        }
+
+        int bookingId;
+        try {
+            // Throws if the flight is already full, the database keeps the seat counter
+            bookingId = db.insertBooking(customer.getId(), flightId, seatNumber);
+        }
+        catch (SQLException e) {
+            if (e.getErrorCode() == ER_DUP_ENTRY) {
+                // Another client booked it first, the seat really is taken so it stays claimed
+                throw seatTaken(flightId, seatNumber, e);
+            }
+            seatInventory.seatReleased(flightId, seatNumber);
+            throw e;
+        }
+        flight.setAvailableSeats(flight.getAvailableSeats() - 1);
         return new Booking(bookingId, customer, flight, seatNumber);
     }
 
-    // Retrieves all bookings made by a specific customer based on their customerId
-    // Returns a list of Booking objects for that customer
-    public ArrayList<Booking> getCustomerBookings(int customerId) throws SQLException {
-        ArrayList<Booking> allBookings = db.getAllBookings();
-        ArrayList<Booking> customerBookings = new ArrayList<>();
+    // Holds a seat while the customer pays, returns null if the seat is already taken or held
+    public SeatHold holdSeat(Customer customer, Flight flight, int seatNumber) throws SQLException {
+        return seatHolds.hold(customer.getId(), flight.getFlightID(), seatNumber);
+    }
+
+    // Restarts the hold's TTL, call before charging, false means the hold is gone and nothing may be charged
+    public boolean extendHold(SeatHold hold) throws SQLException {
+        return seatHolds.extend(hold);
+    }
+
+    // Books a held seat, fails if the hold was released, or ran out and someone else took the seat or the last place
+    // The hold already took the seat and its place on the counter, the booking replaces it in one transaction
+    // Call straight after the payment succeeds, the customer has paid by then
+    public Booking createBooking(Customer customer, Flight flight, SeatHold hold) throws SQLException {
+        int flightId = hold.getFlightId();
+        int seatNumber = hold.getSeatNumber();
+        if (!seatHolds.confirm(hold)) {
+            throw new SQLException("The hold on seat " + seatNumber + " expired, please book again.");
+        }
+
+        int bookingId;
+        try {
+            bookingId = db.insertHeldBooking(hold.getHoldId(), customer.getId(), flightId, seatNumber);
+        }
+        catch (SQLException e) {
+            // The hold row is gone or the flight changed, reload it rather than guess which
+            seatInventory.invalidate(flightId);
+            if (e.getErrorCode() == ER_DUP_ENTRY) {
+                throw seatTaken(flightId, seatNumber, e);
+            }
+            throw e;
+        }
+        seatInventory.seatBooked(flightId, seatNumber); // Claimed again if the hold ran out here meanwhile
+        flight.setAvailableSeats(flight.getAvailableSeats() - 1);
+        return new Booking(bookingId, customer, flight, seatNumber);
+    }
+
+    // Gives a held seat back early, does nothing if the hold was already booked or expired
+    public void releaseHold(SeatHold hold) {
+        seatHolds.release(hold);
+    }
 
-        for (Booking booking : allBookings) {
-            if (booking.getCustomer().getId() == customerId) {
-                customerBookings.add(booking);
+    /**
+     * Books several seats on one flight for one customer, all or nothing. The seats are claimed
+     * in memory first, then inserted with one batched insert and one seat-counter update.
+     *
+     * @param customer Customer the seats are for
+     * @param flight Flight to book
+     * @param seatNumbers 1 to MAX_GROUP_SIZE different seats
+     * @return One booking per seat, in the order given
+     * */
+    public ArrayList<Booking> createGroupBooking(Customer customer, Flight flight, int[] seatNumbers) throws SQLException {
+        if (seatNumbers.length < 1 || seatNumbers.length > MAX_GROUP_SIZE) {
+            throw new IllegalArgumentException("A group booking is 1 to " + MAX_GROUP_SIZE + " seats.");
+        }
+        if (Arrays.stream(seatNumbers).distinct().count() != seatNumbers.length) {
+            throw new IllegalArgumentException("The same seat was chosen twice.");
+        }
+        int flightId = flight.getFlightID();
+        int taken = seatInventory.tryClaimAll(flightId, seatNumbers);
+        if (taken >= 0) {
+            throw seatTaken(flightId, taken, null);
+        }
+        return insertGroup(customer, flight, seatNumbers);
+    }
+
+    /**
+     * Books count seats next to each other (consecutive seat numbers), picking the lowest free run.
+     * Searches again if another booker takes one of the seats between the search and the claim.
+     *
+     * @param customer Customer the seats are for
+     * @param flight Flight to book
+     * @param count 1 to MAX_GROUP_SIZE seats
+     * @return One booking per seat, in seat order
+     * */
+    public ArrayList<Booking> createAdjacentGroupBooking(Customer customer, Flight flight, int count) throws SQLException {
+        if (count < 1 || count > MAX_GROUP_SIZE) {
+            throw new IllegalArgumentException("A group booking is 1 to " + MAX_GROUP_SIZE + " seats.");
+        }
+        int flightId = flight.getFlightID();
+        for (int attempt = 0; attempt < ADJACENT_ATTEMPTS; attempt++) {
+            int[] seatNumbers = findAdjacentSeats(flight, count);
+            if (seatNumbers == null) {
+                break;
             }
+            if (seatInventory.tryClaimAll(flightId, seatNumbers) < 0) {
+                return insertGroup(customer, flight, seatNumbers);
+            }
+        }
+        throw new SQLException("No " + count + " adjacent seats left on flight " + flightId + ".");
+    }
+
+    // Returns count free seats next to each other on the flight, or null if there is no such run
+    public int[] findAdjacentSeats(Flight flight, int count) throws SQLException {
+        int first = seatInventory.findAdjacentFreeSeats(flight.getFlightID(), count, MAX_SEAT_NUMBER);
+        if (first < 0) {
+            return null;
         }
-        return customerBookings;
+        int[] seatNumbers = new int[count];
+        for (int i = 0; i < count; i++) {
+            seatNumbers[i] = first + i;
+        }
+        return seatNumbers;
+    }
+
+    // Inserts seats already claimed in the inventory, which are given back if the insert fails
+    private ArrayList<Booking> insertGroup(Customer customer, Flight flight, int[] seatNumbers) throws SQLException {
+        int flightId = flight.getFlightID();
+        int[] bookingIds;
+        try {
+            bookingIds = db.insertGroupBooking(customer.getId(), flightId, seatNumbers);
+        }
+        catch (SQLException e) {
+            for (int seatNumber : seatNumbers) {
+                seatInventory.seatReleased(flightId, seatNumber);
+            }
+            if (e.getErrorCode() == ER_DUP_ENTRY) {
+                // Another client took one of the seats, reload the flight to learn which
+                seatInventory.invalidate(flightId);
+                throw new SQLException("One of the seats was just booked by someone else on flight " + flightId + ".", e);
+            }
+            throw e;
+        }
+
+        flight.setAvailableSeats(flight.getAvailableSeats() - seatNumbers.length);
+        ArrayList<Booking> bookings = new ArrayList<>(seatNumbers.length);
+        for (int i = 0; i < seatNumbers.length; i++) {
+            bookings.add(new Booking(bookingIds[i], customer, flight, seatNumbers[i]));
+        }
+        return bookings;
+    }
+
+    private static SQLException seatTaken(int flightId, int seatNumber, SQLException cause) {
+        return new SQLException("Seat " + seatNumber + " is already taken on flight " + flightId + ".", cause);
+    }
+
+    // Retrieves all bookings made by a specific customer based on their customerId
+    // Returns a list of Booking objects for that customer
+    public ArrayList<Booking> getCustomerBookings(int customerId) throws SQLException {
+        return db.getBookingsByCustomer(customerId);
     }
 
     // Cancels a booking by deleting the booking record from the database using the bookingId
     public void cancelBooking(int bookingId) throws SQLException {
-        db.deleteBooking(bookingId);
+        Booking booking = db.getBookingById(bookingId); // Needed to free the seat in the inventory
+        if (db.deleteBooking(bookingId) > 0 && booking != null) {
+            seatInventory.seatReleased(booking.getFlight().getFlightID(), booking.getSeatNumber());
+        }
+    }
+
+    // Returns true if the seat is already booked on the flight
+    public boolean isSeatTaken(int flightId, int seatNumber) throws SQLException {
+        return seatInventory.isSeatTaken(flightId, seatNumber);
+    }
+
+    // Forgets the cached seat maps so seats booked by other clients are picked up on the next check
+    public void reloadSeatInventory() {
+        seatInventory.invalidateAll();
+    }
+
+    // Retrieves a single booking by its bookingId, or null if it does not exist
+    public Booking getBooking(int bookingId) throws SQLException {
+        return db.getBookingById(bookingId);
     }
 
     // Retrieves all bookings in the system
@@ -41,14 +215,44 @@ public class BookingController {
         return db.getAllBookings();
     }
 
-    // Updates an existing booking's details in the database (customer, flight, seat number)
-    public void updateBooking(Booking booking) throws SQLException {
-    db.updateBooking(booking.getBookingId(), 
-                    booking.getCustomer().getId(), 
-                    booking.getFlight().getFlightID(), 
-                    booking.getSeatNumber());
+    public int countBookings() throws SQLException {
+        return db.countBookings();
     }
 
+    // One page of all bookings for grids that load as they scroll, see DatabaseManager.getBookingsPage
+    public ArrayList<Booking> getBookingsPage(String sortBy, boolean descending, Booking after, int offset, int limit) throws SQLException {
+        return db.getBookingsPage(sortBy, descending, after, offset, limit);
+    }
 
+    // Updates an existing booking's details in the database (customer, flight, seat number)
+    // A new seat is claimed the same way as in createBooking before the old one is given up
+    public void updateBooking(Booking booking) throws SQLException {
+        Booking previous = db.getBookingById(booking.getBookingId()); // Old flight and seat, for the inventory
+        int flightId = booking.getFlight().getFlightID();
+        int seatNumber = booking.getSeatNumber();
+        boolean seatChanged = previous == null || previous.getFlight().getFlightID() != flightId
+                              || previous.getSeatNumber() != seatNumber;
+        if (seatChanged && !seatInventory.tryClaim(flightId, seatNumber)) {
+            throw seatTaken(flightId, seatNumber, null);
+        }
 
+        try {
+            db.updateBooking(booking.getBookingId(),
+                             booking.getCustomer().getId(),
+                             flightId,
+                             seatNumber);
+        }
+        catch (SQLException e) {
+            if (seatChanged && e.getErrorCode() == ER_DUP_ENTRY) {
+                throw seatTaken(flightId, seatNumber, e);
+            }
+            if (seatChanged) {
+                seatInventory.seatReleased(flightId, seatNumber);
+            }
+            throw e;
+        }
+        if (seatChanged && previous != null) {
+            seatInventory.seatReleased(previous.getFlight().getFlightID(), previous.getSeatNumber());
+        }
+    }
 }
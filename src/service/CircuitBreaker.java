@@ -0,0 +1,174 @@
+// CircuitBreaker.java
+// Stops calling a failing provider for a while so callers fail fast instead of waiting on it
+// Decides from a rolling window of the last calls: too many errors or too many slow calls open the breaker
+package service;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final String name;
+    private final int minCalls; // Calls in the window before the rates count
+    private final double failureRateThreshold;
+    private final double slowCallRateThreshold;
+    private final long slowCallMillis;
+    private final long openMillis; // How long to reject calls before trying again
+    private final int halfOpenCalls; // Trial calls allowed while half open
+
+    // Rolling window, one entry per finished call, guarded by this
+    private final boolean[] failed;
+    private final boolean[] slow;
+    private int windowCount = 0;
+    private int windowNext = 0;
+    private int failures = 0;
+    private int slowCalls = 0;
+
+    private State state = State.CLOSED; // Guarded by this
+    private long openedAt;
+    private int trialsStarted;
+    private int trialsSucceeded;
+
+    // Metrics
+    private final Map<State, Map<State, Long>> transitions = new EnumMap<>(State.class); // from -> to -> count
+    private long rejectedCalls = 0;
+    private long lastTransitionAt = System.currentTimeMillis();
+
+    /**
+     * Creates a closed breaker.
+     *
+     * @param name Shown in logs, usually the provider
+     * @param windowSize Number of recent calls the rates are taken over
+     * @param minCalls Calls needed in the window before the breaker can open
+     * @param failureRateThreshold Share of failed calls (0-1) that opens the breaker
+     * @param slowCallMillis Calls slower than this count as slow
+     * @param slowCallRateThreshold Share of slow calls (0-1) that opens the breaker
+     * @param openMillis Time the breaker stays open before letting trial calls through
+     * @param halfOpenCalls Trial calls that must all succeed to close the breaker again
+     * */
+    public CircuitBreaker(String name, int windowSize, int minCalls, double failureRateThreshold,
+                          long slowCallMillis, double slowCallRateThreshold, long openMillis, int halfOpenCalls) {
+        this.name = name;
+        this.failed = new boolean[windowSize];
+        this.slow = new boolean[windowSize];
+        this.minCalls = minCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallMillis = slowCallMillis;
+        this.slowCallRateThreshold = slowCallRateThreshold;
+        this.openMillis = openMillis;
+        this.halfOpenCalls = halfOpenCalls;
+        for (State from : State.values()) {
+            transitions.put(from, new EnumMap<>(State.class));
+        }
+    }
+
+    // Returns true if a call may go ahead, every permitted call must be followed by onSuccess or onFailure
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            moveTo(State.HALF_OPEN);
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        if (state == State.HALF_OPEN && trialsStarted < halfOpenCalls) {
+            trialsStarted++;
+            return true;
+        }
+        rejectedCalls++;
+        return false;
+    }
+
+    // The call got an answer (a declined payment is still an answer)
+    public synchronized void onSuccess(long elapsedMillis) {
+        record(false, elapsedMillis);
+    }
+
+    // The call threw or timed out
+    public synchronized void onFailure(long elapsedMillis) {
+        record(true, elapsedMillis);
+    }
+
+    // A permitted call that never reached the provider, gives a half open trial back
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && trialsStarted > 0) {
+            trialsStarted--;
+        }
+    }
+
+    private void record(boolean isFailure, long elapsedMillis) {
+        boolean isSlow = elapsedMillis >= slowCallMillis;
+        if (state == State.HALF_OPEN) {
+            if (isFailure || isSlow) {
+                moveTo(State.OPEN); // The provider is still unwell
+            }
+            else if (++trialsSucceeded >= halfOpenCalls) {
+                moveTo(State.CLOSED);
+            }
+            return;
+        }
+        if (state == State.OPEN) {
+            return; // A call that started before the breaker opened
+        }
+
+        if (windowCount == failed.length) {
+            // Drop the oldest call
+            failures -= failed[windowNext] ? 1 : 0;
+            slowCalls -= slow[windowNext] ? 1 : 0;
+        }
+        else {
+            windowCount++;
+        }
+        failed[windowNext] = isFailure;
+        slow[windowNext] = isSlow;
+        failures += isFailure ? 1 : 0;
+        slowCalls += isSlow ? 1 : 0;
+        windowNext = (windowNext + 1) % failed.length;
+
+        if (windowCount >= minCalls && (getFailureRate() >= failureRateThreshold
+                                        || getSlowCallRate() >= slowCallRateThreshold)) {
+            moveTo(State.OPEN);
+        }
+    }
+
+    private void moveTo(State next) {
+        State previous = state;
+        System.out.println("Circuit breaker " + name + ": " + previous + " -> " + next +
+            " (failure rate " + Math.round(getFailureRate() * 100) + "%, slow " + Math.round(getSlowCallRate() * 100) + "%)");
+        transitions.get(previous).merge(next, 1L, Long::sum);
+        lastTransitionAt = System.currentTimeMillis();
+        state = next;
+        trialsStarted = 0;
+        trialsSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAt = lastTransitionAt;
+        }
+        if (next != State.HALF_OPEN) {
+            // Start a fresh window, old calls say nothing about the provider after a state change
+            windowCount = 0;
+            windowNext = 0;
+            failures = 0;
+            slowCalls = 0;
+        }
+    }
+
+    // === Metrics ===
+    public String getName() { return name; }
+
+    // Reports OPEN until a call is attempted after the open period, like tryAcquire would see it
+    public synchronized State getState() { return state; }
+    public synchronized double getFailureRate() { return windowCount == 0 ? 0 : (double) failures / windowCount; }
+    public synchronized double getSlowCallRate() { return windowCount == 0 ? 0 : (double) slowCalls / windowCount; }
+    public synchronized long getRejectedCalls() { return rejectedCalls; }
+    public synchronized long getLastTransitionAt() { return lastTransitionAt; }
+
+    // Number of times the breaker went from one state to another
+    public synchronized long getTransitionCount(State from, State to) {
+        return transitions.get(from).getOrDefault(to, 0L);
+    }
+
+    // Callers can go ahead, or the open period is over and a trial call would be let through
+    public synchronized boolean isCallPermitted() {
+        return state != State.OPEN || System.currentTimeMillis() - openedAt >= openMillis;
+    }
+}
@@ -30,6 +30,12 @@ public class CustomerController {
         return db.getCustomerById(customerId);
     }
 
+    // Retrieves a customer by the username they log in with
+    // Returns null if no customer has that username
+    public Customer getCustomerByUsername(String username) throws SQLException {
+        return db.getCustomerByUsername(username);
+    }
+
     // Retrieves all customers in the system as an ArrayList
     // Returns a list of Customer objects for all customers stored in the database
     public ArrayList<Customer> getAllCustomersAsArray() throws SQLException {
@@ -49,7 +55,12 @@ public class CustomerController {
     // If the deletion fails, throws an SQLException    
     public boolean deleteCustomer(int customerId) throws SQLException {
         try {
+            ArrayList<Booking> bookings = db.getBookingsByCustomer(customerId);
             int result = db.deleteCustomer(customerId);
+            // The deleted bookings' seats are free again
+            for (Booking booking : bookings) {
+                SeatInventory.getInstance().seatReleased(booking.getFlight().getFlightID(), booking.getSeatNumber());
+            }
             return result > 0;
         } catch (SQLException e) {
             throw new SQLException("Error deleting customer: " + e.getMessage(), e);
@@ -33,21 +33,16 @@ public class FlightController {
     }
 
     // Searches for flights based on the given origin city, destination city, and departure date
-    // Filters flights that match the departure date and other search parameters
+    // Empty cities and a null date are ignored, filtering is done by the database
     // Returns a list of matching Flight objects
-
     public ArrayList<Flight> searchFlights(String originCity, String destinationCity, CustomDate customDate) throws SQLException {
-        // Retrieve all flights and filter based on the custom date
-        ArrayList<Flight> allFlights = getAllFlights();
-        ArrayList<Flight> results = new ArrayList<>();
-
-        // Iterate through each flight and check if the departure date matches the search date
-        for (Flight flight : allFlights) {
-            if (flight.getDepartureDate().toString().equals(customDate.toString())) {
-                results.add(flight); // Add the matching flight to the results list
-            }
-        }
-        return results; // Return the list of matching flights
+        return db.searchFlights(originCity, destinationCity, customDate, customDate, 0, null);
+    }
+
+    // Full search: departure date range, minimum free seats and airline, any of them may be null/0
+    public ArrayList<Flight> searchFlights(String originCity, String destinationCity, CustomDate fromDate,
+                                           CustomDate toDate, int minSeats, String airlineName) throws SQLException {
+        return db.searchFlights(originCity, destinationCity, fromDate, toDate, minSeats, airlineName);
     }
 
 
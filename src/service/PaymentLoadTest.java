@@ -0,0 +1,132 @@
+// PaymentLoadTest.java
+// Pushes payments through PaymentProcessor against simulated gateways and reports latency percentiles and outcomes
+// Runs in memory only (no database or real gateway), run with: java service.PaymentLoadTest [paymentsPerSecond] [seconds]
+package service;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+import model.Card;
+import model.CreditCardPayment;
+import model.LatencyDistribution;
+import model.PaymentGateway.GatewayUnavailableException;
+import model.SimulatedGateway;
+
+public class PaymentLoadTest {
+    private static final int MAX_IN_FLIGHT = 64;
+    private static final int MAX_CALLS_PER_PROVIDER = 64; // One provider here, so no need to hold slots back
+    private static final long ATTEMPT_TIMEOUT_MILLIS = 2_000;
+
+    public static void main(String[] args) {
+        int paymentsPerSecond = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        System.out.println("=== " + paymentsPerSecond + " payments/s for " + seconds + "s per profile, "
+            + MAX_IN_FLIGHT + " in flight, " + ATTEMPT_TIMEOUT_MILLIS + " ms per attempt ===");
+        System.out.printf("%-14s %7s %7s %7s %7s %7s %7s %8s %8s %8s %s%n",
+            "profile", "ok", "decline", "timeout", "unavail", "open", "reject", "p50 ms", "p95 ms", "p99 ms", "breaker");
+
+        run("fixed", new SimulatedGateway("fixed", LatencyDistribution.fixed(300), 0.1), paymentsPerSecond, seconds);
+        run("lognormal", SimulatedGateway.creditCard(), paymentsPerSecond, seconds);
+        run("heavy-tailed", new SimulatedGateway("heavy-tailed",
+            LatencyDistribution.heavyTailed(150, 1.2, 20_000), 0.1), paymentsPerSecond, seconds);
+
+        SimulatedGateway throttled = SimulatedGateway.creditCard();
+        throttled.setMaxRequestsPerSecond(paymentsPerSecond / 2.0);
+        run("throttled", throttled, paymentsPerSecond, seconds);
+
+        SimulatedGateway outage = SimulatedGateway.creditCard();
+        outage.addOutage(seconds * 1000L / 3, seconds * 1000L / 3); // Down for the middle third
+        run("outage", outage, paymentsPerSecond, seconds);
+    }
+
+    // Open loop: payments arrive at a fixed rate whatever the gateway does, like customers would
+    private static void run(String profile, SimulatedGateway gateway, int paymentsPerSecond, int seconds) {
+        PaymentProcessor processor = new PaymentProcessor(MAX_IN_FLIGHT, MAX_CALLS_PER_PROVIDER, ATTEMPT_TIMEOUT_MILLIS);
+        CreditCardPayment payment = new CreditCardPayment(new Card("4111111111111111", "Load Test", "12/30", "123"), gateway);
+        LongAdder ok = new LongAdder();
+        LongAdder declined = new LongAdder();
+        LongAdder timedOut = new LongAdder();
+        LongAdder unavailable = new LongAdder();
+        LongAdder breakerOpen = new LongAdder();
+        LongAdder rejected = new LongAdder();
+
+        PrintStream console = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream())); // The strategies log every payment
+        int total = paymentsPerSecond * seconds;
+        long[] latencies = new long[total];
+        try {
+            ArrayList<CompletableFuture<String>> futures = new ArrayList<>(total);
+            long intervalNanos = 1_000_000_000L / paymentsPerSecond;
+            long start = System.nanoTime();
+            for (int i = 0; i < total; i++) {
+                long due = start + i * intervalNanos;
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    sleepNanos(wait);
+                }
+                int index = i;
+                long submitted = System.nanoTime();
+                futures.add(processor.process(payment, 1.0).whenComplete((result, error) ->
+                    latencies[index] = (System.nanoTime() - submitted) / 1_000_000));
+            }
+
+            for (CompletableFuture<String> future : futures) {
+                try {
+                    if (PaymentProcessor.SUCCESS.equals(future.join())) {
+                        ok.increment();
+                    }
+                    else {
+                        declined.increment();
+                    }
+                }
+                catch (CompletionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof PaymentProcessor.PaymentUnknownException) {
+                        timedOut.increment();
+                    }
+                    else if (cause instanceof GatewayUnavailableException) {
+                        unavailable.increment();
+                    }
+                    else if (cause instanceof PaymentProcessor.ProviderUnavailableException) {
+                        breakerOpen.increment(); // Turned away by the breaker or bulkhead, the gateway was not called
+                    }
+                    else if (cause instanceof RejectedExecutionException) {
+                        rejected.increment();
+                    }
+                    else {
+                        throw e;
+                    }
+                }
+            }
+        }
+        finally {
+            System.setOut(console);
+        }
+
+        Arrays.sort(latencies);
+        CircuitBreaker breaker = processor.getCircuitBreaker(payment.getMethodName());
+        System.out.printf("%-14s %7d %7d %7d %7d %7d %7d %8d %8d %8d %s, opened %dx%n", profile,
+            ok.sum(), declined.sum(), timedOut.sum(), unavailable.sum(), breakerOpen.sum(), rejected.sum(),
+            percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99), breaker.getState(),
+            breaker.getTransitionCount(CircuitBreaker.State.CLOSED, CircuitBreaker.State.OPEN)
+                + breaker.getTransitionCount(CircuitBreaker.State.HALF_OPEN, CircuitBreaker.State.OPEN));
+    }
+
+    private static long percentile(long[] sorted, int percent) {
+        return sorted[Math.min(sorted.length - 1, sorted.length * percent / 100)];
+    }
+
+    private static void sleepNanos(long nanos) {
+        try {
+            Thread.sleep(nanos / 1_000_000, (int) (nanos % 1_000_000));
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
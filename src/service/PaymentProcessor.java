@@ -0,0 +1,267 @@
+// PaymentProcessor.java
+// Runs payment strategies off the caller's thread and hands back a CompletableFuture
+// Every payment gets its own virtual thread, the gateway call has a timeout and the number of payments in flight is capped
+// A call that timed out is never repeated, the gateway has no way to tell a second charge from a retry
+// Each provider (payment method) has its own circuit breaker and bulkhead, so one slow provider cannot hold up the other
+package service;
+
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import model.PaymentStrategy;
+
+public class PaymentProcessor {
+    public static final String SUCCESS = "Success"; // Results returned by PaymentStrategy.pay
+    public static final String FAILED = "Failed";
+
+    private static final int MAX_IN_FLIGHT = 32; // Payments talking to a gateway at the same time
+    private static final long ATTEMPT_TIMEOUT_MILLIS = 10_000; // One call to the gateway
+    private static final long QUEUE_TIMEOUT_MILLIS = 5_000; // Wait for a free slot before giving up
+    private static final int MAX_CALLS_PER_PROVIDER = 24; // Bulkhead, less than MAX_IN_FLIGHT so the other provider always gets slots
+
+    // Circuit breaker settings, see CircuitBreaker
+    private static final int BREAKER_WINDOW = 20;
+    private static final int BREAKER_MIN_CALLS = 10;
+    private static final double BREAKER_FAILURE_RATE = 0.5;
+    private static final long BREAKER_SLOW_CALL_MILLIS = 5_000;
+    private static final double BREAKER_SLOW_CALL_RATE = 0.8;
+    private static final long BREAKER_OPEN_MILLIS = 30_000;
+    private static final int BREAKER_HALF_OPEN_CALLS = 3;
+
+    private static PaymentProcessor instance; // Singleton instance of PaymentProcessor
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Semaphore inFlight;
+    private final int maxInFlight;
+    private final int maxCallsPerProvider;
+    private final long attemptTimeoutMillis;
+    private final Map<String, Provider> providers = new ConcurrentHashMap<>(); // Keyed by PaymentStrategy.getMethodName
+
+    // Private constructor for Singleton pattern
+    private PaymentProcessor() {
+        this(MAX_IN_FLIGHT, MAX_CALLS_PER_PROVIDER, ATTEMPT_TIMEOUT_MILLIS);
+    }
+
+    PaymentProcessor(int maxInFlight, int maxCallsPerProvider, long attemptTimeoutMillis) {
+        this.inFlight = new Semaphore(maxInFlight);
+        this.maxInFlight = maxInFlight;
+        this.maxCallsPerProvider = maxCallsPerProvider;
+        this.attemptTimeoutMillis = attemptTimeoutMillis;
+    }
+
+    // Returns the single instance of PaymentProcessor (Singleton pattern)
+    public static synchronized PaymentProcessor getInstance() {
+        if (instance == null) {
+            instance = new PaymentProcessor();
+        }
+        return instance;
+    }
+
+    /**
+     * Starts a payment and returns straight away. The future completes with SUCCESS or FAILED,
+     * or exceptionally with a PaymentUnknownException when the gateway did not answer in time, or a
+     * RejectedExecutionException when too many payments are already in progress.
+     * Cancelling only works until the charge is sent to the gateway, see Payment.cancel.
+     *
+     * @param strategy How to pay
+     * @param amount Amount to charge
+     * @return Future result of the payment
+     * */
+    public Payment process(PaymentStrategy strategy, double amount) {
+        Payment result = new Payment();
+        Future<?> task = executor.submit(() -> run(strategy, amount, result));
+        // CompletableFuture.cancel does not interrupt anything, so pass it on to the task
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                task.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    // Body of a payment, runs on its own virtual thread
+    private void run(PaymentStrategy strategy, double amount, Payment result) {
+        try {
+            if (!inFlight.tryAcquire(QUEUE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS)) {
+                result.completeExceptionally(new RejectedExecutionException(
+                    "Too many payments in progress, please try again."));
+                return;
+            }
+            try {
+                result.complete(attempt(strategy, amount, result));
+            }
+            finally {
+                inFlight.release();
+            }
+        }
+        catch (InterruptedException | CancellationException e) {
+            result.cancel(false); // Cancelled by the caller, nothing left to report
+        }
+        catch (ExecutionException e) {
+            result.completeExceptionally(e.getCause());
+        }
+        catch (Throwable t) {
+            result.completeExceptionally(t); // Turned away by the provider, or a bug, the caller must not wait forever
+        }
+    }
+
+    // Calls the strategy once, a call that timed out may still have charged the customer so it is not repeated
+    private String attempt(PaymentStrategy strategy, double amount, Payment payment)
+            throws InterruptedException, ExecutionException {
+        Provider provider = providerFor(strategy.getMethodName());
+        provider.acquire(); // Fails fast if the breaker is open or the bulkhead is full
+        if (!payment.startCharging()) {
+            provider.bulkhead.release();
+            provider.breaker.onIgnored(); // Cancelled before the call, says nothing about the provider
+            throw new CancellationException();
+        }
+        long started = System.nanoTime();
+        // Never interrupted, stopping the thread would not stop a charge the gateway already took
+        // The slot is given back when the call really ends, a call that timed out still loads the provider
+        Future<String> call = executor.submit(() -> {
+            try {
+                return strategy.pay(amount);
+            }
+            finally {
+                provider.bulkhead.release();
+            }
+        });
+        try {
+            String result = call.get(attemptTimeoutMillis, TimeUnit.MILLISECONDS);
+            provider.breaker.onSuccess(elapsedMillis(started));
+            return result;
+        }
+        catch (TimeoutException e) {
+            provider.breaker.onFailure(elapsedMillis(started));
+            throw new PaymentUnknownException(strategy.getMethodName() + " did not answer within "
+                + (attemptTimeoutMillis / 1000.0) + "s, the payment may or may not have gone through.");
+        }
+        catch (ExecutionException e) {
+            provider.breaker.onFailure(elapsedMillis(started));
+            throw e;
+        }
+    }
+
+    private static long elapsedMillis(long startedNanos) {
+        return (System.nanoTime() - startedNanos) / 1_000_000;
+    }
+
+    private Provider providerFor(String methodName) {
+        return providers.computeIfAbsent(methodName, name -> new Provider(name, maxCallsPerProvider));
+    }
+
+    // Returns false if payments with this method would be turned away right now (breaker open)
+    public boolean isAvailable(String methodName) {
+        Provider provider = providers.get(methodName);
+        return provider == null || provider.breaker.isCallPermitted();
+    }
+
+    // Breaker of a payment method, for metrics
+    public CircuitBreaker getCircuitBreaker(String methodName) {
+        return providerFor(methodName).breaker;
+    }
+
+    // Calls running against a payment method right now
+    public int getProviderCallCount(String methodName) {
+        return maxCallsPerProvider - providerFor(methodName).bulkhead.availablePermits();
+    }
+
+    // Calls turned away because the provider's bulkhead was full
+    public long getBulkheadRejections(String methodName) {
+        return providerFor(methodName).bulkheadRejections.sum();
+    }
+
+    // Breaker and bulkhead of one payment method
+    private static class Provider {
+        private final String methodName;
+        private final CircuitBreaker breaker;
+        private final Semaphore bulkhead;
+        private final LongAdder bulkheadRejections = new LongAdder();
+
+        private Provider(String methodName, int maxCalls) {
+            this.methodName = methodName;
+            this.bulkhead = new Semaphore(maxCalls);
+            this.breaker = new CircuitBreaker(methodName, BREAKER_WINDOW, BREAKER_MIN_CALLS, BREAKER_FAILURE_RATE,
+                BREAKER_SLOW_CALL_MILLIS, BREAKER_SLOW_CALL_RATE, BREAKER_OPEN_MILLIS, BREAKER_HALF_OPEN_CALLS);
+        }
+
+        // Takes a bulkhead slot and a breaker permit, or throws without waiting
+        private void acquire() {
+            if (!bulkhead.tryAcquire()) {
+                bulkheadRejections.increment();
+                throw new ProviderUnavailableException(methodName + " is handling too many payments, please try again.");
+            }
+            if (!breaker.tryAcquire()) {
+                bulkhead.release();
+                throw new ProviderUnavailableException(methodName + " is not responding right now, please use another payment method.");
+            }
+        }
+    }
+
+    // A payment was turned away without calling the provider
+    public static class ProviderUnavailableException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public ProviderUnavailableException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Future result of a payment. It can be cancelled while it waits for a slot, once the charge
+     * is sent to the gateway cancel returns false and the future completes with the gateway's answer.
+     * */
+    public static class Payment extends CompletableFuture<String> {
+        private boolean charging = false; // Guarded by this
+
+        private Payment() {
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            synchronized (this) {
+                if (charging) {
+                    return false;
+                }
+                return super.cancel(mayInterruptIfRunning);
+            }
+        }
+
+        // Called right before the gateway is called, returns false if the payment was cancelled first
+        private synchronized boolean startCharging() {
+            if (isCancelled()) {
+                return false;
+            }
+            charging = true;
+            return true;
+        }
+
+        // True once the charge was sent, from then on it can no longer be cancelled
+        public synchronized boolean isCharging() {
+            return charging;
+        }
+    }
+
+    // The gateway did not answer in time, the customer may have been charged
+    public static class PaymentUnknownException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public PaymentUnknownException(String message) {
+            super(message);
+        }
+    }
+
+    // Payments talking to a gateway right now
+    public int getInFlightCount() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+}
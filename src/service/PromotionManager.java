@@ -1,24 +1,71 @@
 // PromotionManager.java
+// Observers are notified asynchronously: each one has a bounded queue that a small worker pool drains in batches,
+// so publishing returns straight away and a slow observer only delays its own notifications
+// Subscriptions are kept in the promotion_subscription table: customers logged in here get live notifications
+// through their observer, the rest are shown what went live since their stored notified-until time at their next login
 package service;
+import backend.DatabaseManager;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import model.Customer;
 import model.Promotion;
 import model.PromotionObserver;
 import model.PromotionSubject;
 
 public class PromotionManager implements PromotionSubject {
+    private static final int MAILBOX_CAPACITY = 64; // Notifications queued per observer, the oldest is dropped beyond this
+    private static final int BATCH_SIZE = 16; // Delivered to one observer before its worker moves on to others
+
     private static PromotionManager instance; // Singleton instance of PromotionManager
-    private List<PromotionObserver> observers; // List of registered observers
-    private List<Promotion> activePromotions; // List of currently active promotions
+    private Map<PromotionObserver, Mailbox> observers; // Registered observers and their pending notifications
+    private final ExecutorService publisher; // Fans each promotion out to the mailboxes, one thread keeps them in order
+    private final ExecutorService dispatcher; // Delivers notifications, one thread per core
+    private final LongAdder droppedNotifications = new LongAdder();
+    private volatile Catalog catalog = Catalog.EMPTY; // Active promotions, replaced whole on every change
+    private final PriorityQueue<Promotion> pending = // Not yet started, earliest start date first, guarded by catalogLock
+        new PriorityQueue<>(Comparator.comparingLong(PromotionManager::activationTime));
+    private final Object catalogLock = new Object(); // Serializes writers, readers only read catalog
+    private final ScheduledExecutorService activator; // Makes queued promotions live on their start date
+    private ScheduledFuture<?> nextActivation; // Guarded by catalogLock
 
     // Private constructor for Singleton pattern to ensure only one instance of PromotionManager
     private PromotionManager() {
-        this.observers = new ArrayList<>();
-        this.activePromotions = new ArrayList<>();
+        this.observers = new ConcurrentHashMap<>();
+        this.activator = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "Promotion-activation"));
+        this.publisher = Executors.newSingleThreadExecutor(r -> daemon(r, "Promotion-publish"));
+        // At least two workers, so a single slow observer never has the pool to itself
+        this.dispatcher = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()),
+                                                       r -> daemon(r, "Promotion-dispatch"));
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true); // Never keep the GUI process alive
+        return t;
     }
 
     // Returns the single instance of PromotionManager (Singleton pattern)
-    public static PromotionManager getInstance() {
+    public static synchronized PromotionManager getInstance() {
         if (instance == null) {
             instance = new PromotionManager();
         }
@@ -28,61 +75,294 @@ public class PromotionManager implements PromotionSubject {
     // Registers an observer to receive updates when promotions change
     @Override
     public void registerObserver(PromotionObserver observer) {
-        if (!observers.contains(observer)) {
-            observers.add(observer); // Add the observer if not already registered
-        }
+        observers.computeIfAbsent(observer, Mailbox::new); // Add the observer if not already registered
     }
 
-    // Removes an observer from the list of observers
+    // Removes an observer, notifications still queued for it are dropped
     @Override
     public void removeObserver(PromotionObserver observer) {
-        observers.remove(observer); // Remove the observer from the list
+        Mailbox mailbox = observers.remove(observer);
+        if (mailbox != null) {
+            mailbox.queue.clear();
+        }
+    }
+
+    // Stores the subscription and starts live notifications for this session
+    public void subscribe(Customer customer) throws SQLException {
+        DatabaseManager.getInstance().insertSubscription(customer.getId());
+        registerObserver(customer);
+    }
+
+    // Deletes the subscription and stops live notifications
+    public void unsubscribe(Customer customer) throws SQLException {
+        DatabaseManager.getInstance().deleteSubscription(customer.getId());
+        removeObserver(customer);
+    }
+
+    // Returns true if the customer has a stored subscription
+    public boolean isSubscribed(Customer customer) throws SQLException {
+        return DatabaseManager.getInstance().isSubscribed(customer.getId());
     }
 
-    // Notifies all registered observers of a new or updated promotion
+    // Notifies all registered observers of a new or updated promotion, returns without waiting for them
+    // Subscribers who are not logged in are not notified here, catchUp gives them what they missed at their next login
     @Override
     public void notifyObservers(Promotion promotion) {
-        for (PromotionObserver observer : observers) {
-            observer.update(promotion); // Notify each observer with the updated promotion
+        publisher.execute(() -> {
+            // The fan-out runs in the background too, so the caller pays O(1) however many subscribers there are
+            ArrayList<Integer> customerIds = new ArrayList<>();
+            for (Mailbox mailbox : observers.values()) {
+                mailbox.post(promotion);
+                if (mailbox.observer instanceof Customer customer) {
+                    customerIds.add(customer.getId());
+                }
+            }
+            try {
+                // Delivered live, so the next login must not show it again
+                DatabaseManager.getInstance().markPromotionNotified(promotion.getPromoCode(), customerIds);
+            }
+            catch (SQLException e) {
+                System.err.println("Could not record promotion " + promotion.getPromoCode() + " as notified: " + e.getMessage());
+            }
+        });
+    }
+
+    // Notifies a subscriber who just logged in of the promotions that went live while they were away, read from
+    // the database so it does not depend on this process having loaded the catalog yet
+    public void catchUp(Customer customer) throws SQLException {
+        List<Promotion> missed = DatabaseManager.getInstance().takeMissedPromotions(customer.getId());
+        if (!missed.isEmpty()) {
+            notifyObserver(customer, missed);
+        }
+    }
+
+    // Queues promotions for one registered observer only, e.g. the current ones for a new subscriber
+    public void notifyObserver(PromotionObserver observer, List<Promotion> promotions) {
+        Mailbox mailbox = observers.get(observer);
+        if (mailbox != null) {
+            for (Promotion promotion : promotions) {
+                mailbox.post(promotion);
+            }
         }
     }
 
-    // Adds a new promotion to the list of active promotions and notifies observers
+    // Notifications dropped because an observer fell too far behind
+    public long getDroppedNotificationCount() {
+        return droppedNotifications.sum();
+    }
+
+    // Notifications for one observer, drained by at most one worker at a time so they arrive in order
+    private class Mailbox {
+        private final PromotionObserver observer;
+        private final ArrayBlockingQueue<Promotion> queue = new ArrayBlockingQueue<>(MAILBOX_CAPACITY);
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private Mailbox(PromotionObserver observer) {
+            this.observer = observer;
+        }
+
+        private void post(Promotion promotion) {
+            while (!queue.offer(promotion)) {
+                if (queue.poll() != null) {
+                    droppedNotifications.increment(); // Full, the newest promotions matter more
+                }
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                dispatcher.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            List<Promotion> batch = new ArrayList<>(BATCH_SIZE);
+            queue.drainTo(batch, BATCH_SIZE);
+            try {
+                if (!batch.isEmpty()) {
+                    observer.updateAll(batch);
+                }
+            }
+            catch (RuntimeException e) {
+                System.err.println("Promotion observer failed: " + e.getMessage()); // Must not stop the other observers
+            }
+            finally {
+                scheduled.set(false);
+                if (!queue.isEmpty()) {
+                    schedule(); // Back of the line, other observers get a turn first
+                }
+            }
+        }
+    }
+
+    // Adds a promotion and notifies observers, or queues it until its start date if that is still ahead
     public void addPromotion(Promotion promotion) {
-        activePromotions.add(promotion); // Add the promotion to active promotions list
+        synchronized (catalogLock) {
+            removeCode(promotion.getPromoCode()); // Replaces an older version of the same code
+            if (activationTime(promotion) > System.currentTimeMillis()) {
+                pending.add(promotion);
+                scheduleNextActivation();
+                return; // Observers hear about it when it goes live
+            }
+            catalog = catalog.with(List.of(promotion));
+        }
         notifyObservers(promotion); // Notify observers of the new promotion
     }
 
-    // Removes a promotion from the list of active promotions by its promoCode
+    // Removes a promotion, active or still waiting for its start date, by its promoCode
     public void removePromotion(String promoCode) {
-        activePromotions.removeIf(p -> p.getPromoCode().equals(promoCode)); // Remove promotion by promoCode
+        synchronized (catalogLock) {
+            removeCode(promoCode);
+            scheduleNextActivation();
+        }
     }
 
-    // Retrieves a promotion by its promoCode from the list of active promotions
+    private void removeCode(String promoCode) {
+        if (catalog.get(promoCode) != null) {
+            catalog = catalog.without(promoCode);
+        }
+        pending.removeIf(p -> fold(p.getPromoCode()).equals(fold(promoCode)));
+    }
+
+    // Retrieves an active promotion by its promoCode, ignoring case
     // Returns null if no matching promotion is found
     public Promotion getPromotionByCode(String promoCode) {
-        for (Promotion promotion : activePromotions) {
-            if (promotion.getPromoCode().equalsIgnoreCase(promoCode)) {
-                return promotion; // Return the matching promotion
-            }
-        }
-        return null; // Return null if no matching promotion is found
+        return promoCode == null ? null : catalog.get(promoCode); // One hash lookup on the current snapshot
     }
 
-    // Returns a new list containing all the active promotions
+    // Returns the active promotions, an unmodifiable snapshot that later changes do not affect
     public List<Promotion> getActivePromotions() {
-        return new ArrayList<>(activePromotions); // Return a copy of the active promotions list
+        return catalog.promotions;
     }
 
-    // Loads promotions from the database and updates the active promotions list
+    /**
+     * Loads promotions from the database. Only what changed since the last load is touched:
+     * unchanged promotions keep their instances, promotions whose start date is still ahead
+     * wait in the activation queue, and readers switch to the new snapshot in one step.
+     * */
     public void loadPromotionsFromDatabase() {
         try {
             backend.DatabaseManager db = backend.DatabaseManager.getInstance();
             ArrayList<Promotion> promotions = db.getAllPromotions(); // Retrieve promotions from the database
-            activePromotions.clear(); // Clear current active promotions
-            activePromotions.addAll(promotions); // Add all retrieved promotions to the active list
+            long now = System.currentTimeMillis();
+            synchronized (catalogLock) {
+                Map<String, Promotion> known = new HashMap<>();
+                for (Promotion promotion : catalog.promotions) {
+                    known.put(fold(promotion.getPromoCode()), promotion);
+                }
+                for (Promotion promotion : pending) {
+                    known.put(fold(promotion.getPromoCode()), promotion);
+                }
+
+                ArrayList<Promotion> active = new ArrayList<>();
+                ArrayList<Promotion> waiting = new ArrayList<>();
+                int changed = 0;
+                for (Promotion loaded : promotions) {
+                    Promotion current = known.remove(fold(loaded.getPromoCode()));
+                    Promotion promotion = current != null && sameContent(current, loaded) ? current : loaded;
+                    changed += promotion == current ? 0 : 1;
+                    (activationTime(promotion) > now ? waiting : active).add(promotion);
+                }
+                int removed = known.size();
+
+                if (changed > 0 || removed > 0 || active.size() != catalog.promotions.size()) {
+                    catalog = new Catalog(active); // Swapped in whole, readers never see a half-built list
+                }
+                pending.clear();
+                pending.addAll(waiting);
+                scheduleNextActivation();
+                System.out.println("Promotions loaded: " + active.size() + " active, " + waiting.size() + " starting later, "
+                    + changed + " new or changed, " + removed + " removed");
+            }
         } catch (Exception e) {
             System.err.println("Error loading promotions from database: " + e.getMessage()); // Log error if database retrieval fails
         }
     }
-}
\ No newline at end of file
+
+    // Runs on the activator thread when the earliest queued promotion's start date arrives
+    private void activateDue() {
+        ArrayList<Promotion> due = new ArrayList<>();
+        synchronized (catalogLock) {
+            long now = System.currentTimeMillis();
+            while (!pending.isEmpty() && activationTime(pending.peek()) <= now) {
+                due.add(pending.poll());
+            }
+            if (!due.isEmpty()) {
+                catalog = catalog.with(due);
+            }
+            scheduleNextActivation();
+        }
+        for (Promotion promotion : due) {
+            System.out.println("Promotion " + promotion.getPromoCode() + " is now active");
+            notifyObservers(promotion);
+        }
+    }
+
+    // Keeps exactly one timer, set for the earliest queued start date, caller holds catalogLock
+    private void scheduleNextActivation() {
+        if (nextActivation != null) {
+            nextActivation.cancel(false);
+            nextActivation = null;
+        }
+        Promotion next = pending.peek();
+        if (next != null) {
+            long delay = Math.max(0, activationTime(next) - System.currentTimeMillis());
+            nextActivation = activator.schedule(this::activateDue, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Start of the promotion's start date in local time, promotions without a start date are active straight away
+    private static long activationTime(Promotion promotion) {
+        if (promotion.getStartDate() == null) {
+            return 0;
+        }
+        return LocalDate.parse(promotion.getStartDate().toSQLDate())
+            .atStartOfDay(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static boolean sameContent(Promotion a, Promotion b) {
+        return a.getPromoCode().equals(b.getPromoCode())
+            && a.getDiscountRate() == b.getDiscountRate()
+            && Objects.equals(a.getDescription(), b.getDescription())
+            && activationTime(a) == activationTime(b);
+    }
+
+    // Promo codes are matched without regard to case
+    private static String fold(String promoCode) {
+        return promoCode.toLowerCase(Locale.ROOT);
+    }
+
+    // Immutable snapshot of the active promotions, replaced as a whole on every change (copy-on-write)
+    private static class Catalog {
+        private static final Catalog EMPTY = new Catalog(List.of());
+
+        private final List<Promotion> promotions;
+        private final Map<String, Promotion> byCode; // Case-folded code -> promotion
+
+        private Catalog(List<Promotion> promotions) {
+            Map<String, Promotion> index = new LinkedHashMap<>();
+            for (Promotion promotion : promotions) {
+                index.put(fold(promotion.getPromoCode()), promotion); // A later duplicate code wins
+            }
+            this.byCode = Collections.unmodifiableMap(index);
+            this.promotions = List.copyOf(index.values());
+        }
+
+        private Promotion get(String promoCode) {
+            return byCode.get(fold(promoCode));
+        }
+
+        private Catalog with(List<Promotion> added) {
+            ArrayList<Promotion> next = new ArrayList<>(promotions);
+            next.addAll(added);
+            return new Catalog(next);
+        }
+
+        private Catalog without(String promoCode) {
+            ArrayList<Promotion> next = new ArrayList<>(promotions);
+            next.removeIf(p -> fold(p.getPromoCode()).equals(fold(promoCode)));
+            return new Catalog(next);
+        }
+    }
+}
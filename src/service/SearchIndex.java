@@ -0,0 +1,220 @@
+// SearchIndex.java
+// In-memory substring index for search-as-you-type: every 1, 2 and 3 character piece of each searchable
+// field maps to the items containing it there, so short queries are a lookup and longer ones only check
+// the items holding all of their pieces instead of every item
+// Immutable once built, build it off the EDT and search from any thread
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+
+public class SearchIndex<T> {
+    private static final int MAX_GRAM = 3;
+    private static final int ANY_FIELD = 0xFF; // Field number of the postings for all fields together
+    private static final int[] NONE = new int[0];
+    private static final String FIELD_SEPARATOR = "\u0000"; // Cannot be typed, so no query spans two fields
+
+    private final List<T> items;
+    private final String[][] fields; // Per item, lower-cased
+    private final String[] joined; // Per item, its fields in one string, so checking them all is one contains
+    private final HashMap<Long, int[]> postings; // Packed gram and field -> ascending item indexes
+
+    /**
+     * Builds the index, cost is linear in the total length of the fields.
+     *
+     * @param items Items in the order results are returned in
+     * @param fieldsOf The searchable text of an item, field positions are what search(query, fields) refers to;
+     *                 at most 255 fields
+     * */
+    public SearchIndex(List<T> items, Function<T, String[]> fieldsOf) {
+        this.items = List.copyOf(items);
+        this.fields = new String[items.size()][];
+        this.joined = new String[items.size()];
+        HashMap<Long, IntList> lists = new HashMap<>();
+        for (int item = 0; item < items.size(); item++) {
+            String[] values = fieldsOf.apply(items.get(item));
+            fields[item] = new String[values.length];
+            for (int f = 0; f < values.length; f++) {
+                String value = values[f] == null ? "" : values[f].toLowerCase(Locale.ROOT);
+                fields[item][f] = value;
+                for (int start = 0; start < value.length(); start++) {
+                    for (int length = 1; length <= MAX_GRAM && start + length <= value.length(); length++) {
+                        long gram = pack(value, start, length);
+                        lists.computeIfAbsent(key(gram, f), k -> new IntList()).addOnce(item);
+                        lists.computeIfAbsent(key(gram, ANY_FIELD), k -> new IntList()).addOnce(item);
+                    }
+                }
+            }
+            joined[item] = String.join(FIELD_SEPARATOR, fields[item]);
+        }
+        this.postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((gram, list) -> postings.put(gram, list.toArray()));
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Items with a field containing the query, ignoring case.
+     *
+     * @param query Text to look for, blank returns every item
+     * @param fields Field positions to look in, none for all fields
+     * @return Matches in item order
+     * */
+    public List<T> search(String query, int... fields) {
+        String text = query == null ? "" : query.trim().toLowerCase(Locale.ROOT);
+        if (text.isEmpty()) {
+            return items;
+        }
+
+        int[] wanted = fields.length == 0 ? new int[]{ANY_FIELD} : fields;
+        if (text.length() <= MAX_GRAM) {
+            // The query is a whole gram, its postings are the answer
+            long gram = pack(text, 0, text.length());
+            int[] found = NONE;
+            for (int field : wanted) {
+                found = union(found, postings.getOrDefault(key(gram, field), NONE));
+            }
+            return itemsAt(found, found.length);
+        }
+
+        int[] found = NONE;
+        for (int field : wanted) {
+            found = union(found, candidates(text, field));
+        }
+        // Candidates hold every trigram of the query in the field, check they are in one piece
+        int count = 0;
+        for (int item : found) {
+            if (matches(item, text, fields)) {
+                found[count++] = item;
+            }
+        }
+        return itemsAt(found, count);
+    }
+
+    // Items with every trigram of the query in the field, from the rarest trigram so the intersection shrinks fast
+    private int[] candidates(String text, int field) {
+        int[][] lists = new int[text.length() - MAX_GRAM + 1][];
+        for (int start = 0; start < lists.length; start++) {
+            lists[start] = postings.getOrDefault(key(pack(text, start, MAX_GRAM), field), NONE);
+        }
+        Arrays.sort(lists, (a, b) -> Integer.compare(a.length, b.length));
+        int[] candidates = lists[0];
+        for (int i = 1; i < lists.length && candidates.length > 0; i++) {
+            candidates = intersect(candidates, lists[i]);
+        }
+        return candidates == lists[0] ? candidates.clone() : candidates; // Filtered in place by the caller
+    }
+
+    private List<T> itemsAt(int[] indexes, int count) {
+        ArrayList<T> matches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            matches.add(items.get(indexes[i]));
+        }
+        return matches;
+    }
+
+    private boolean matches(int item, String text, int[] wanted) {
+        if (wanted.length == 0) {
+            return joined[item].contains(text);
+        }
+        String[] values = fields[item];
+        for (int f : wanted) {
+            if (f < values.length && values[f].contains(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long key(long gram, int field) {
+        return gram << 8 | field;
+    }
+
+    // Up to three chars in one key, the length goes in the top bits so "a" and "a\0" differ
+    private static long pack(String text, int start, int length) {
+        long key = length;
+        for (int i = 0; i < length; i++) {
+            key = (key << 16) | text.charAt(start + i);
+        }
+        return key;
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0 || b.length == 0) {
+            return a.length == 0 ? b : a;
+        }
+        int[] out = new int[a.length + b.length];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.length || j < b.length) {
+            if (j == b.length || (i < a.length && a[i] < b[j])) {
+                out[count++] = a[i++];
+            }
+            else if (i == a.length || b[j] < a[i]) {
+                out[count++] = b[j++];
+            }
+            else {
+                out[count++] = a[i++];
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        if (b.length > a.length * 16) {
+            // Much longer than the candidates so far, look each of them up instead of walking it
+            int[] out = new int[a.length];
+            int count = 0;
+            for (int value : a) {
+                if (Arrays.binarySearch(b, value) >= 0) {
+                    out[count++] = value;
+                }
+            }
+            return Arrays.copyOf(out, count);
+        }
+        int[] out = new int[Math.min(a.length, b.length)];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.length && j < b.length; ) {
+            if (a[i] < b[j]) {
+                i++;
+            }
+            else if (a[i] > b[j]) {
+                j++;
+            }
+            else {
+                out[count++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return Arrays.copyOf(out, count);
+    }
+
+    // Growable int array, items are added in ascending order so a repeat is always the last one
+    private static class IntList {
+        private int[] values = new int[4];
+        private int size = 0;
+
+        void addOnce(int value) {
+            if (size > 0 && values[size - 1] == value) {
+                return;
+            }
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
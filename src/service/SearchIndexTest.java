@@ -0,0 +1,158 @@
+// SearchIndexTest.java
+// Checks SearchIndex.search against a plain scan that lower-cases every field and calls contains
+// Runs in memory only (no database), run with: java service.SearchIndexTest
+package service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+public class SearchIndexTest {
+    private static final int FIELDS = 3;
+    private static final List<String[]> CITIES = List.of(
+        new String[]{"Calgary", "Vancouver", "2024-12-20"},
+        new String[]{"Toronto", "Montreal", "2024-12-21"},
+        new String[]{"Vancouver", "Calgary", "2024-12-22"},
+        new String[]{"New York", "Los Angeles", "2025-01-05"},
+        new String[]{"Banff", "Edmonton", "2025-01-06"}
+    );
+
+    public static void main(String[] args) {
+        try {
+            testQueryLengths();
+            testFieldRestriction();
+            testNullFields();
+            testNoMatchAcrossFields();
+            testRandomItems();
+
+            System.out.println("\n=== ALL TESTS COMPLETED SUCCESSFULLY! ===");
+        }
+        catch (Exception e) {
+            System.err.println("Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private static void testQueryLengths() {
+        System.out.println("\n=== Testing Query Lengths ===");
+        SearchIndex<String[]> index = new SearchIndex<>(CITIES, item -> item);
+        // 1, 2 and 3 characters are answered from the postings, longer queries by intersecting trigrams
+        for (String query : new String[]{"a", "c", "Z", "ca", "AN", "-1", "cal", "ver", "202", "calg", "vancouver",
+                                         "2024-12", "new york", " Toronto ", "", "  ", "nowhere"}) {
+            expectSame(index, CITIES, query);
+        }
+        System.out.println("✓ Queries of every length match the scan, ignoring case and outer spaces");
+    }
+
+    private static void testFieldRestriction() {
+        System.out.println("\n=== Testing Field Restriction ===");
+        SearchIndex<String[]> index = new SearchIndex<>(CITIES, item -> item);
+        for (String query : new String[]{"c", "ca", "cal", "calgary", "van", "vancouver", "12-2", "2025"}) {
+            expectSame(index, CITIES, query, 0);
+            expectSame(index, CITIES, query, 1);
+            expectSame(index, CITIES, query, 0, 2);
+            expectSame(index, CITIES, query, 1, 2);
+        }
+        if (index.search("calgary", 0).size() != 1 || index.search("calgary").size() != 2) {
+            throw new IllegalStateException("Calgary should be an origin once and in any field twice");
+        }
+        System.out.println("✓ Searches limited to some fields match the scan of those fields");
+    }
+
+    private static void testNullFields() {
+        System.out.println("\n=== Testing Null Fields ===");
+        List<String[]> items = List.of(
+            new String[]{null, "Calgary", "2024-12-20"},
+            new String[]{"Toronto", null, null},
+            new String[]{null, null, null},
+            new String[]{"Null", "null", "Edmonton"}
+        );
+        SearchIndex<String[]> index = new SearchIndex<>(items, item -> item);
+        for (String query : new String[]{"n", "nu", "nul", "null", "t", "toronto", "cal", "2024", ""}) {
+            expectSame(index, items, query);
+            expectSame(index, items, query, 0);
+            expectSame(index, items, query, 1);
+        }
+        System.out.println("✓ Null fields match nothing, not even \"null\"");
+    }
+
+    private static void testNoMatchAcrossFields() {
+        System.out.println("\n=== Testing Matches Across Fields ===");
+        List<String[]> items = List.<String[]>of(new String[]{"Calgary", "Vancouver", "2024-12-20"});
+        SearchIndex<String[]> index = new SearchIndex<>(items, item -> item);
+        // Each only exists where the end of one field meets the start of the next
+        for (String query : new String[]{"ryv", "aryva", "calgaryvancouver", "calgary vancouver", "ver2",
+                                         "couver2024", "r2", "y v"}) {
+            expectSame(index, items, query);
+            expectSame(index, items, query, 0, 1);
+            if (!index.search(query).isEmpty()) {
+                throw new IllegalStateException("\"" + query + "\" matched across two fields");
+            }
+        }
+        System.out.println("✓ A query spanning two fields matches neither");
+    }
+
+    // Random short words over a small alphabet, so queries of every length have plenty of matches
+    private static void testRandomItems() {
+        System.out.println("\n=== Testing Random Items ===");
+        Random random = new Random(42);
+        ArrayList<String[]> items = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            String[] fields = new String[FIELDS];
+            for (int f = 0; f < FIELDS; f++) {
+                fields[f] = random.nextInt(10) == 0 ? null : randomText(random, 1 + random.nextInt(8));
+            }
+            items.add(fields);
+        }
+        SearchIndex<String[]> index = new SearchIndex<>(items, item -> item);
+        int queries = 0;
+        for (int length = 1; length <= 6; length++) {
+            for (int i = 0; i < 200; i++) {
+                String query = randomText(random, length);
+                expectSame(index, items, query);
+                expectSame(index, items, query, random.nextInt(FIELDS));
+                queries += 2;
+            }
+        }
+        System.out.println("✓ " + queries + " random queries over " + items.size() + " items match the scan");
+    }
+
+    private static String randomText(Random random, int length) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            text.append("abcAB ".charAt(random.nextInt(6)));
+        }
+        return text.toString();
+    }
+
+    private static void expectSame(SearchIndex<String[]> index, List<String[]> items, String query, int... fields) {
+        List<String[]> expected = scan(items, query, fields);
+        List<String[]> found = index.search(query, fields);
+        if (!found.equals(expected)) {
+            throw new IllegalStateException("\"" + query + "\" in fields " + Arrays.toString(fields)
+                + " found " + found.size() + " items, the scan found " + expected.size());
+        }
+    }
+
+    // What search promises, item by item
+    private static List<String[]> scan(List<String[]> items, String query, int... fields) {
+        String text = query.trim().toLowerCase(Locale.ROOT);
+        ArrayList<String[]> matches = new ArrayList<>();
+        for (String[] item : items) {
+            boolean match = text.isEmpty();
+            for (int f = 0; f < item.length && !match; f++) {
+                boolean wanted = fields.length == 0;
+                for (int field : fields) {
+                    wanted |= field == f;
+                }
+                match = wanted && item[f] != null && item[f].toLowerCase(Locale.ROOT).contains(text);
+            }
+            if (match) {
+                matches.add(item);
+            }
+        }
+        return matches;
+    }
+}
@@ -0,0 +1,114 @@
+// SeatClaimBenchmark.java
+// Measures SeatInventory.tryClaim under contention, from 1 to 64 threads fighting over the same flight
+// Runs in memory only (no database), run with: java service.SeatClaimBenchmark
+package service;
+
+import java.util.BitSet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class SeatClaimBenchmark {
+    private static final int SEATS = 500; // Same seat range the GUIs allow
+    private static final long RUN_MILLIS = 1_000; // Measured time per thread count
+    private static final long WARMUP_MILLIS = 300;
+    private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+    public static void main(String[] args) throws InterruptedException {
+        checkSingleWinnerPerSeat();
+
+        System.out.println("\n=== Seat claim throughput (" + SEATS + " seats, one flight) ===");
+        System.out.printf("%8s %16s %16s%n", "threads", "claims/s", "attempts/s");
+        run(4, WARMUP_MILLIS); // Let the JIT compile the claim path first
+        for (int threads : THREAD_COUNTS) {
+            long[] result = run(threads, RUN_MILLIS);
+            System.out.printf("%8d %,16d %,16d%n", threads,
+                result[0] * 1000 / RUN_MILLIS, result[1] * 1000 / RUN_MILLIS);
+        }
+    }
+
+    // Every seat of a fresh flight must end up with exactly one winner however many threads race for it
+    private static void checkSingleWinnerPerSeat() throws InterruptedException {
+        System.out.println("=== Checking one winner per seat ===");
+        SeatInventory inventory = new SeatInventory(flightId -> new BitSet());
+        AtomicInteger[] winners = new AtomicInteger[SEATS + 1];
+        for (int seat = 1; seat <= SEATS; seat++) {
+            winners[seat] = new AtomicInteger();
+        }
+
+        int threads = 64;
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    start.await();
+                    for (int seat = 1; seat <= SEATS; seat++) {
+                        if (inventory.tryClaim(1, seat)) {
+                            winners[seat].incrementAndGet();
+                        }
+                    }
+                }
+                catch (Exception e) {
+                    e.printStackTrace();
+                }
+                finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        start.countDown();
+        done.await();
+
+        for (int seat = 1; seat <= SEATS; seat++) {
+            if (winners[seat].get() != 1) {
+                throw new IllegalStateException("Seat " + seat + " had " + winners[seat].get() + " winners");
+            }
+        }
+        System.out.println("✓ " + threads + " threads, " + SEATS + " seats, every seat claimed exactly once");
+    }
+
+    // Threads claim random seats and give back what they win (a cancellation), so the flight never fills up
+    // Returns {successful claims, attempts}
+    private static long[] run(int threads, long millis) throws InterruptedException {
+        SeatInventory inventory = new SeatInventory(flightId -> new BitSet());
+        LongAdder claims = new LongAdder();
+        LongAdder attempts = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long[] deadline = new long[1];
+
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long localClaims = 0;
+                long localAttempts = 0;
+                try {
+                    start.await();
+                    while (System.nanoTime() < deadline[0]) {
+                        int seat = 1 + random.nextInt(SEATS);
+                        localAttempts++;
+                        if (inventory.tryClaim(1, seat)) {
+                            localClaims++;
+                            inventory.seatReleased(1, seat);
+                        }
+                    }
+                }
+                catch (Exception e) {
+                    e.printStackTrace();
+                }
+                finally {
+                    claims.add(localClaims);
+                    attempts.add(localAttempts);
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        deadline[0] = System.nanoTime() + millis * 1_000_000;
+        start.countDown(); // The latch publishes deadline to the workers
+        done.await();
+        return new long[]{claims.sum(), attempts.sum()};
+    }
+}
@@ -0,0 +1,230 @@
+// SeatHoldManager.java
+// Reserves a seat while the customer pays, the hold is confirmed into a booking or expires after a TTL
+// Holds are rows in the database so every client respects them, the expiry time is kept there too
+// A hierarchical timing wheel only schedules deleting the row once the TTL is up, so tracking many holds costs almost nothing
+package service;
+
+import backend.DatabaseManager;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SeatHoldManager {
+    private static final long DEFAULT_TTL_MILLIS = 5 * 60_000; // Time to type in card details
+    private static final long TICK_MILLIS = 250; // Expiry resolution
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4; // 250 ms * 64^4, about 48 days of range
+
+    // Where holds are kept, the database outside of tests
+    interface HoldStore {
+        int insert(int customerId, int flightId, int seatNumber, long ttlMillis) throws SQLException; // 0 if taken
+        boolean extend(int holdId, long ttlMillis) throws SQLException;
+        void delete(int holdId, boolean expiredOnly) throws SQLException;
+    }
+
+    private static SeatHoldManager instance; // Singleton instance of SeatHoldManager
+    private final SeatInventory seatInventory;
+    private final HoldStore store;
+    private final TimingWheel expiryWheel;
+    private final Map<Integer, Set<SeatHold>> activeHolds = new ConcurrentHashMap<>(); // flightId -> holds
+    private volatile long ttlMillis = DEFAULT_TTL_MILLIS;
+
+    // Private constructor for Singleton pattern
+    private SeatHoldManager() {
+        this(SeatInventory.getInstance(), new DatabaseHoldStore(DatabaseManager.getInstance()));
+    }
+
+    SeatHoldManager(SeatInventory seatInventory, HoldStore store) {
+        this.seatInventory = seatInventory;
+        this.store = store;
+        this.expiryWheel = new TimingWheel(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS, "SeatHold-expiry");
+        // Reloaded seat maps must still show held seats as taken
+        seatInventory.setHeldSeatsSource(this::heldSeats);
+    }
+
+    // Returns the single instance of SeatHoldManager (Singleton pattern)
+    public static synchronized SeatHoldManager getInstance() {
+        if (instance == null) {
+            instance = new SeatHoldManager();
+        }
+        return instance;
+    }
+
+    /**
+     * Holds a seat for the configured TTL. The seat is claimed in this client's inventory first,
+     * then the hold is stored so other clients can neither book nor hold it.
+     *
+     * @param customerId Customer paying for the seat
+     * @param flightId Flight of the seat
+     * @param seatNumber Seat to hold
+     * @return The hold, or null if the seat is already taken or held
+     * */
+    public SeatHold hold(int customerId, int flightId, int seatNumber) throws SQLException {
+        if (!seatInventory.tryClaim(flightId, seatNumber)) {
+            return null;
+        }
+        long ttl = ttlMillis;
+        int holdId;
+        try {
+            holdId = store.insert(customerId, flightId, seatNumber, ttl);
+        }
+        catch (SQLException | RuntimeException e) {
+            seatInventory.seatReleased(flightId, seatNumber);
+            throw e;
+        }
+        if (holdId == 0) {
+            // Booked or held by another client, reload the flight so this client sees it too
+            seatInventory.invalidate(flightId);
+            return null;
+        }
+        SeatHold hold = new SeatHold(holdId, flightId, seatNumber);
+        activeHolds.computeIfAbsent(flightId, id -> ConcurrentHashMap.newKeySet()).add(hold);
+        hold.timeout = expiryWheel.schedule(() -> expire(hold), ttl);
+        return hold;
+    }
+
+    /**
+     * Restarts the hold's TTL. Call right before charging the customer, so the hold
+     * cannot run out while the payment is in progress.
+     *
+     * @return false if the hold already ran out or was released, the customer must not be charged
+     * */
+    public boolean extend(SeatHold hold) throws SQLException {
+        if (!hold.isActive()) {
+            return false;
+        }
+        long ttl = ttlMillis;
+        if (!store.extend(hold.holdId, ttl)) {
+            return false;
+        }
+        synchronized (hold) {
+            if (!hold.isActive()) {
+                return false;
+            }
+            hold.timeout.cancel();
+            hold.timeout = expiryWheel.schedule(() -> expire(hold), ttl);
+        }
+        return true;
+    }
+
+    // Stops tracking the hold because it is being booked, returns false if it was released
+    // A hold that ran out here may still be booked, the database decides whether its row is still there
+    public boolean confirm(SeatHold hold) {
+        if (!hold.state.compareAndSet(SeatHold.HELD, SeatHold.CONFIRMED)
+                && !hold.state.compareAndSet(SeatHold.EXPIRED, SeatHold.CONFIRMED)) {
+            return false;
+        }
+        hold.timeout.cancel();
+        forget(hold); // The seat stays claimed, it is booked now
+        return true;
+    }
+
+    // Gives the seat back early (payment failed or was cancelled), does nothing if the hold is no longer active
+    // The row is deleted in the background, so this is safe to call from the EDT
+    public void release(SeatHold hold) {
+        if (hold != null && hold.state.compareAndSet(SeatHold.HELD, SeatHold.RELEASED)) {
+            hold.timeout.cancel();
+            forget(hold);
+            seatInventory.seatReleased(hold.flightId, hold.seatNumber);
+            deleteLater(hold, false); // If this fails the row runs out on its own, other clients ignore it once its TTL is up
+        }
+    }
+
+    // Runs on the wheel's thread when the TTL is up, the row is deleted off that thread so the wheel keeps ticking
+    private void expire(SeatHold hold) {
+        if (hold.state.compareAndSet(SeatHold.HELD, SeatHold.EXPIRED)) {
+            forget(hold);
+            seatInventory.seatReleased(hold.flightId, hold.seatNumber);
+            deleteLater(hold, true);
+        }
+    }
+
+    private void deleteLater(SeatHold hold, boolean expiredOnly) {
+        CompletableFuture.runAsync(() -> {
+            try {
+                store.delete(hold.holdId, expiredOnly);
+            }
+            catch (SQLException e) {
+                System.err.println("Could not delete seat hold " + hold.holdId + ": " + e.getMessage());
+            }
+        });
+    }
+
+    private void forget(SeatHold hold) {
+        Set<SeatHold> holds = activeHolds.get(hold.flightId);
+        if (holds != null) {
+            holds.remove(hold);
+        }
+    }
+
+    // Seats currently held on a flight
+    private BitSet heldSeats(int flightId) {
+        BitSet seats = new BitSet();
+        Set<SeatHold> holds = activeHolds.get(flightId);
+        if (holds != null) {
+            for (SeatHold hold : holds) {
+                seats.set(hold.seatNumber);
+            }
+        }
+        return seats;
+    }
+
+    public long getTtlMillis() { return ttlMillis; }
+    public void setTtlMillis(long ttlMillis) { this.ttlMillis = ttlMillis; } // Applies to new holds and extensions
+    public int getActiveHoldCount() { return expiryWheel.getPendingCount(); }
+
+    // Stores holds in the seat_hold table
+    private static class DatabaseHoldStore implements HoldStore {
+        private final DatabaseManager db;
+
+        private DatabaseHoldStore(DatabaseManager db) {
+            this.db = db;
+        }
+
+        @Override
+        public int insert(int customerId, int flightId, int seatNumber, long ttlMillis) throws SQLException {
+            return db.insertSeatHold(customerId, flightId, seatNumber, ttlMillis);
+        }
+
+        @Override
+        public boolean extend(int holdId, long ttlMillis) throws SQLException {
+            return db.extendSeatHold(holdId, ttlMillis);
+        }
+
+        @Override
+        public void delete(int holdId, boolean expiredOnly) throws SQLException {
+            db.deleteSeatHold(holdId, expiredOnly);
+        }
+    }
+
+    // A held seat, moves from HELD to exactly one of CONFIRMED, RELEASED or EXPIRED (which may still be confirmed)
+    public static class SeatHold {
+        private static final int HELD = 0;
+        private static final int CONFIRMED = 1;
+        private static final int RELEASED = 2;
+        private static final int EXPIRED = 3;
+
+        private final int holdId;
+        private final int flightId;
+        private final int seatNumber;
+        private final AtomicInteger state = new AtomicInteger(HELD);
+        private volatile TimingWheel.Timeout timeout;
+
+        private SeatHold(int holdId, int flightId, int seatNumber) {
+            this.holdId = holdId;
+            this.flightId = flightId;
+            this.seatNumber = seatNumber;
+        }
+
+        // === Getters ===
+        public int getHoldId() { return holdId; }
+        public int getFlightId() { return flightId; }
+        public int getSeatNumber() { return seatNumber; }
+        public boolean isActive() { return state.get() == HELD; }
+        public boolean isExpired() { return state.get() == EXPIRED; }
+    }
+}
@@ -0,0 +1,263 @@
+// SeatInventory.java
+// Keeps the taken seats of each flight as a bitmap of atomic 64-bit words (bit n set = seat n booked)
+// Flights are loaded from the database on first use and then kept up to date on book, cancel and move
+// Seats are claimed with compare-and-set, so concurrent bookers never block each other
+package service;
+
+import backend.DatabaseManager;
+import java.sql.SQLException;
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class SeatInventory {
+    private static final int MIN_CAPACITY = 512; // Seats tracked per flight, the GUIs allow seats 1-500
+
+    private static SeatInventory instance; // Singleton instance of SeatInventory
+    private final TakenSeatsLoader loader;
+    private final Map<Integer, SeatMap> seatMaps = new ConcurrentHashMap<>(); // flightId -> occupancy
+    private volatile TakenSeatsLoader heldSeats; // Seats held in this client but not booked yet, see SeatHoldManager
+
+    // Where a flight's occupancy comes from the first time it is needed
+    @FunctionalInterface
+    interface TakenSeatsLoader {
+        BitSet load(int flightId) throws SQLException;
+    }
+
+    // Private constructor for Singleton pattern, reads occupancy from the database
+    private SeatInventory() {
+        this(DatabaseManager.getInstance()::getTakenSeats);
+    }
+
+    // Used by the benchmark to run without a database
+    SeatInventory(TakenSeatsLoader loader) {
+        this.loader = loader;
+    }
+
+    // Returns the single instance of SeatInventory (Singleton pattern)
+    public static synchronized SeatInventory getInstance() {
+        if (instance == null) {
+            instance = new SeatInventory();
+        }
+        return instance;
+    }
+
+    // Occupancy of a flight, loaded with one query the first time the flight is asked for
+    private SeatMap seatsOf(int flightId) throws SQLException {
+        SeatMap seats = seatMaps.get(flightId);
+        if (seats == null) {
+            BitSet taken = loader.load(flightId);
+            TakenSeatsLoader held = heldSeats;
+            if (held != null) {
+                taken.or(held.load(flightId)); // A reload must not free seats that are on hold
+            }
+            SeatMap loaded = new SeatMap(taken);
+            seats = seatMaps.putIfAbsent(flightId, loaded);
+            if (seats == null) {
+                seats = loaded;
+            }
+        }
+        return seats;
+    }
+
+    // Returns true if the seat is booked on the flight
+    public boolean isSeatTaken(int flightId, int seatNumber) throws SQLException {
+        return seatsOf(flightId).isTaken(seatNumber);
+    }
+
+    /**
+     * Claims a seat with compare-and-set. Exactly one of any number of concurrent
+     * callers wins a free seat, the others get false straight away without locking.
+     * Seats past the tracked capacity always succeed here and are left to the database.
+     *
+     * @param flightId Flight of the seat
+     * @param seatNumber Seat to claim
+     * @return true if this caller now owns the seat
+     * */
+    public boolean tryClaim(int flightId, int seatNumber) throws SQLException {
+        return seatsOf(flightId).tryClaim(seatNumber);
+    }
+
+    // Claims every seat or none, returns the first seat that was already taken, or -1 if all were claimed
+    public int tryClaimAll(int flightId, int[] seatNumbers) throws SQLException {
+        SeatMap seats = seatsOf(flightId);
+        for (int i = 0; i < seatNumbers.length; i++) {
+            if (!seats.tryClaim(seatNumbers[i])) {
+                for (int j = 0; j < i; j++) {
+                    seats.release(seatNumbers[j]); // Give back what this call already took
+                }
+                return seatNumbers[i];
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Finds count free seats in a row (consecutive seat numbers) between 1 and maxSeat.
+     * Jumps from a free seat to the next taken one a word at a time, so full and empty
+     * stretches of the cabin cost one read per 64 seats.
+     *
+     * @param flightId Flight to search
+     * @param count Number of adjacent seats wanted
+     * @param maxSeat Highest seat number allowed
+     * @return The first seat of the lowest free run, or -1 if there is none
+     * */
+    public int findAdjacentFreeSeats(int flightId, int count, int maxSeat) throws SQLException {
+        SeatMap seats = seatsOf(flightId);
+        int from = 1;
+        while (from + count - 1 <= maxSeat) {
+            int first = seats.nextFree(from, maxSeat);
+            if (first < 0 || first + count - 1 > maxSeat) {
+                return -1;
+            }
+            int taken = seats.nextTaken(first, first + count - 1);
+            if (taken < 0) {
+                return first;
+            }
+            from = taken + 1;
+        }
+        return -1;
+    }
+
+    // Returns the first free seat from fromSeat up to maxSeat (inclusive), or -1 if they are all taken
+    public int nextFreeSeat(int flightId, int fromSeat, int maxSeat) throws SQLException {
+        return seatsOf(flightId).nextFree(Math.max(fromSeat, 1), maxSeat);
+    }
+
+    // Snapshot of the flight's occupancy
+    public BitSet getTakenSeats(int flightId) throws SQLException {
+        return seatsOf(flightId).snapshot();
+    }
+
+    // Marks a seat as booked, flights that were never loaded are left to load from the database
+    public void seatBooked(int flightId, int seatNumber) {
+        SeatMap seats = seatMaps.get(flightId);
+        if (seats != null) {
+            seats.tryClaim(seatNumber);
+        }
+    }
+
+    // Marks a seat as free again after a cancellation or a failed claim
+    public void seatReleased(int flightId, int seatNumber) {
+        SeatMap seats = seatMaps.get(flightId);
+        if (seats != null) {
+            seats.release(seatNumber);
+        }
+    }
+
+    // A booking moved to another seat and/or flight
+    public void seatMoved(int oldFlightId, int oldSeatNumber, int newFlightId, int newSeatNumber) {
+        seatReleased(oldFlightId, oldSeatNumber);
+        seatBooked(newFlightId, newSeatNumber);
+    }
+
+    // Registered by SeatHoldManager so held seats survive a reload
+    void setHeldSeatsSource(TakenSeatsLoader heldSeats) {
+        this.heldSeats = heldSeats;
+    }
+
+    // Drops a flight so the next check reloads it, used when other clients may have changed its bookings
+    public void invalidate(int flightId) {
+        seatMaps.remove(flightId);
+    }
+
+    // Drops every loaded flight
+    public void invalidateAll() {
+        seatMaps.clear();
+    }
+
+    // Fixed size bitmap of one flight, every update is a CAS on the word holding the seat
+    private static class SeatMap {
+        private final AtomicLongArray words;
+        private final int capacity;
+
+        private SeatMap(BitSet taken) {
+            int wordCount = (Math.max(MIN_CAPACITY, taken.length()) + 63) / 64;
+            this.words = new AtomicLongArray(wordCount);
+            this.capacity = wordCount * 64;
+            for (int seat = taken.nextSetBit(0); seat >= 0; seat = taken.nextSetBit(seat + 1)) {
+                tryClaim(seat);
+            }
+        }
+
+        private boolean isTaken(int seat) {
+            if (seat < 0 || seat >= capacity) {
+                return false; // Not tracked, the database decides
+            }
+            return (words.get(seat >>> 6) & (1L << seat)) != 0;
+        }
+
+        private boolean tryClaim(int seat) {
+            if (seat < 0 || seat >= capacity) {
+                return true;
+            }
+            int index = seat >>> 6;
+            long mask = 1L << seat; // Shift distance is taken mod 64
+            while (true) {
+                long word = words.get(index);
+                if ((word & mask) != 0) {
+                    return false; // Someone else holds it, fail fast
+                }
+                if (words.compareAndSet(index, word, word | mask)) {
+                    return true;
+                }
+                // Another seat in the same word changed, retry with the new value
+            }
+        }
+
+        private void release(int seat) {
+            if (seat < 0 || seat >= capacity) {
+                return;
+            }
+            int index = seat >>> 6;
+            long mask = 1L << seat;
+            while (true) {
+                long word = words.get(index);
+                if ((word & mask) == 0 || words.compareAndSet(index, word, word & ~mask)) {
+                    return;
+                }
+            }
+        }
+
+        // Scans whole words, skipping full ones
+        private int nextFree(int fromSeat, int maxSeat) {
+            int last = Math.min(maxSeat, capacity - 1);
+            for (int index = fromSeat >>> 6; index <= last >>> 6; index++) {
+                long free = ~words.get(index);
+                if (index == fromSeat >>> 6) {
+                    free &= -1L << fromSeat; // Ignore seats before fromSeat
+                }
+                if (free != 0) {
+                    int seat = index * 64 + Long.numberOfTrailingZeros(free);
+                    return seat <= last ? seat : -1;
+                }
+            }
+            return maxSeat >= capacity ? Math.max(fromSeat, capacity) : -1;
+        }
+
+        // Returns the first taken seat from fromSeat up to maxSeat (inclusive), or -1 if they are all free
+        private int nextTaken(int fromSeat, int maxSeat) {
+            int last = Math.min(maxSeat, capacity - 1);
+            for (int index = fromSeat >>> 6; index <= last >>> 6; index++) {
+                long taken = words.get(index);
+                if (index == fromSeat >>> 6) {
+                    taken &= -1L << fromSeat;
+                }
+                if (taken != 0) {
+                    int seat = index * 64 + Long.numberOfTrailingZeros(taken);
+                    return seat <= last ? seat : -1;
+                }
+            }
+            return -1; // Seats past the capacity are not tracked, count them as free
+        }
+
+        private BitSet snapshot() {
+            long[] copy = new long[words.length()];
+            for (int i = 0; i < copy.length; i++) {
+                copy[i] = words.get(i);
+            }
+            return BitSet.valueOf(copy);
+        }
+    }
+}
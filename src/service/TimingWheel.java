@@ -0,0 +1,210 @@
+// TimingWheel.java
+// Hierarchical timing wheel for large numbers of timeouts (seat holds)
+// Scheduling and cancelling are O(1), a single daemon thread advances the wheel once per tick
+package service;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class TimingWheel {
+    private final long tickMillis;
+    private final int wheelSize;
+    private final Bucket[][] levels; // levels[i] covers wheelSize^(i+1) ticks, one bucket per wheelSize^i ticks
+    private final long[] spans; // Ticks per bucket on each level
+    private final long startNanos = System.nanoTime();
+    private final ScheduledExecutorService ticker;
+    private long currentTick = 0; // Last tick processed, guarded by this
+    private int pending = 0; // Scheduled and not yet expired or cancelled, guarded by this
+
+    /**
+     * Creates a wheel and starts its ticker thread.
+     *
+     * @param tickMillis Resolution, timeouts fire up to one tick late
+     * @param wheelSize Buckets per level
+     * @param levelCount Number of levels, the wheel covers tickMillis * wheelSize^levelCount
+     * @param name Name of the ticker thread
+     * */
+    public TimingWheel(long tickMillis, int wheelSize, int levelCount, String name) {
+        if (tickMillis <= 0 || wheelSize < 2 || levelCount < 1) {
+            throw new IllegalArgumentException("Invalid timing wheel settings");
+        }
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.levels = new Bucket[levelCount][wheelSize];
+        this.spans = new long[levelCount];
+        long span = 1;
+        for (int level = 0; level < levelCount; level++) {
+            spans[level] = span;
+            for (int slot = 0; slot < wheelSize; slot++) {
+                levels[level][slot] = new Bucket();
+            }
+            span *= wheelSize;
+        }
+
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true); // Never keep the GUI process alive
+            return t;
+        });
+        ticker.scheduleAtFixedRate(this::advance, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs task once delayMillis have passed. The task runs on the ticker thread, so it must be quick.
+     *
+     * @param task What to run
+     * @param delayMillis Delay from now
+     * @return Handle that can cancel the timeout
+     * */
+    public Timeout schedule(Runnable task, long delayMillis) {
+        synchronized (this) {
+            // Round the absolute deadline up so a timeout never fires early
+            long dueMillis = elapsedMillis() + Math.max(0, delayMillis);
+            long deadline = (dueMillis + tickMillis - 1) / tickMillis;
+            Timeout timeout = new Timeout(task, Math.max(deadline, currentTick + 1));
+            place(timeout);
+            pending++;
+            return timeout;
+        }
+    }
+
+    // Number of timeouts still waiting
+    public synchronized int getPendingCount() {
+        return pending;
+    }
+
+    // Stops the ticker, pending timeouts never fire
+    public void stop() {
+        ticker.shutdownNow();
+    }
+
+    private long elapsedMillis() {
+        return (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    private long elapsedTicks() {
+        return elapsedMillis() / tickMillis;
+    }
+
+    // Puts a timeout in the lowest level whose range reaches its deadline
+    private void place(Timeout timeout) {
+        long remaining = timeout.deadline - currentTick;
+        int level = 0;
+        while (level < levels.length - 1 && remaining >= spans[level] * wheelSize) {
+            level++;
+        }
+        int slot = (int) ((timeout.deadline / spans[level]) % wheelSize);
+        levels[level][slot].add(timeout);
+    }
+
+    // Ticker: catches up to the wall clock one tick at a time, then runs what expired
+    private void advance() {
+        Timeout expired = null;
+        synchronized (this) {
+            long target = elapsedTicks();
+            while (currentTick < target) {
+                currentTick++;
+                // Higher levels first, their timeouts move down a level as their bucket comes up
+                for (int level = levels.length - 1; level > 0; level--) {
+                    if (currentTick % spans[level] == 0) {
+                        int slot = (int) ((currentTick / spans[level]) % wheelSize);
+                        Timeout cascaded = levels[level][slot].takeAll();
+                        while (cascaded != null) {
+                            Timeout next = cascaded.next;
+                            cascaded.next = null;
+                            place(cascaded);
+                            cascaded = next;
+                        }
+                    }
+                }
+                Timeout due = levels[0][(int) (currentTick % wheelSize)].takeAll();
+                while (due != null) {
+                    Timeout next = due.next;
+                    pending--;
+                    due.next = expired; // Collect, run outside the lock
+                    expired = due;
+                    due = next;
+                }
+            }
+        }
+
+        while (expired != null) {
+            Timeout next = expired.next;
+            try {
+                expired.task.run();
+            }
+            catch (RuntimeException e) {
+                e.printStackTrace(); // A failing task must not stop the wheel
+            }
+            expired = next;
+        }
+    }
+
+    // Scheduled task, cancel() unlinks it from its bucket in O(1)
+    public class Timeout {
+        private final Runnable task;
+        private final long deadline; // In ticks since the wheel started
+        private Bucket bucket; // null once expired or cancelled
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(Runnable task, long deadline) {
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        // Returns true if the timeout was still pending and will now never run
+        public boolean cancel() {
+            synchronized (TimingWheel.this) {
+                if (bucket == null) {
+                    return false;
+                }
+                bucket.remove(this);
+                pending--;
+                return true;
+            }
+        }
+    }
+
+    // Doubly linked list of timeouts, only touched while holding the wheel's lock
+    private static class Bucket {
+        private Timeout head;
+
+        private void add(Timeout timeout) {
+            timeout.bucket = this;
+            timeout.prev = null;
+            timeout.next = head;
+            if (head != null) {
+                head.prev = timeout;
+            }
+            head = timeout;
+        }
+
+        private void remove(Timeout timeout) {
+            if (timeout.prev != null) {
+                timeout.prev.next = timeout.next;
+            }
+            else {
+                head = timeout.next;
+            }
+            if (timeout.next != null) {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.bucket = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+
+        // Empties the bucket and returns its timeouts as a list linked through next
+        private Timeout takeAll() {
+            Timeout all = head;
+            head = null;
+            for (Timeout t = all; t != null; t = t.next) {
+                t.bucket = null;
+                t.prev = null;
+            }
+            return all;
+        }
+    }
+}